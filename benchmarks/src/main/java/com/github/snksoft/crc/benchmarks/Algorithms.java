@@ -0,0 +1,32 @@
+package com.github.snksoft.crc.benchmarks;
+
+import com.github.snksoft.crc.CRC;
+
+/**
+ * Maps benchmark parameter names to CRC parameter sets.
+ */
+final class Algorithms
+{
+    private Algorithms()
+    {
+    }
+
+    static CRC.Parameters byName(String name)
+    {
+        switch (name)
+        {
+            case "CCITT":
+                return CRC.Parameters.CCITT;
+            case "CRC16":
+                return CRC.Parameters.CRC16;
+            case "CRC32":
+                return CRC.Parameters.CRC32;
+            case "CRC32C":
+                return CRC.Parameters.CRC32C;
+            case "CRC64ECMA":
+                return CRC.Parameters.CRC64ECMA;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.snksoft.crc.benchmarks;
+
+import com.github.snksoft.crc.CRC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batch calculation of CRC-32C, which processors delegate to {@link java.util.zip.CRC32C}, over many
+ * short messages stored in one array and in direct buffers. Nothing should be allocated per message:
+ * {@link BenchmarkMain} fails if gc.alloc.rate.norm of an operation exceeds {@link #ALLOCATION_LIMIT}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BatchBenchmark
+{
+    /** Bytes an operation may allocate, whatever the number of messages: scratch registers of a call */
+    static final double ALLOCATION_LIMIT = 64;
+
+    private static final int MESSAGES = 1024;
+
+    @Param({"16", "64", "256"})
+    public int length;
+
+    private final CRC crc = new CRC(CRC.Parameters.CRC32C);
+    private final int[] offsets = new int[MESSAGES];
+    private final int[] lengths = new int[MESSAGES];
+    private final ByteBuffer[] buffers = new ByteBuffer[MESSAGES];
+    private final long[] results = new long[MESSAGES];
+    private byte[] data;
+
+    @Setup
+    public void setUp()
+    {
+        data = new byte[MESSAGES * length];
+        new Random(length).nextBytes(data);
+        for (int i = 0; i < MESSAGES; i++)
+        {
+            offsets[i] = i * length;
+            lengths[i] = length;
+            buffers[i] = ByteBuffer.allocateDirect(length);
+            buffers[i].put(data, offsets[i], length).flip();
+        }
+    }
+
+    @Benchmark
+    public long[] batchByteArray()
+    {
+        crc.calculateCRCs(data, offsets, lengths, results);
+        return results;
+    }
+
+    @Benchmark
+    public long[] batchDirectByteBuffers()
+    {
+        crc.calculateCRCs(buffers, results);
+        return results;
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.snksoft.crc.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs benchmarks with JMH command line options and GC profiler enabled, so that every result
+ * comes with allocation rate (gc.alloc.rate.norm is bytes allocated per operation).
+ * For example, to run byte array benchmarks for 1KB messages only:
+ * <pre>
+ * java -jar target/benchmarks.jar 'CRCBenchmark.table.*' -p size=1024
+ * </pre>
+ * Exits with status 1 if {@link BatchBenchmark} allocates more than {@link BatchBenchmark#ALLOCATION_LIMIT}
+ * per operation.
+ */
+public final class BenchmarkMain
+{
+    private BenchmarkMain()
+    {
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        boolean failed = false;
+        for (RunResult result : new Runner(options).run())
+        {
+            String benchmark = result.getParams().getBenchmark();
+            Result allocation = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            if (benchmark.startsWith(BatchBenchmark.class.getName()) && allocation != null
+                    && allocation.getScore() > BatchBenchmark.ALLOCATION_LIMIT)
+            {
+                System.err.println(benchmark + " allocates " + allocation.getScore() + " " + allocation.getScoreUnit()
+                        + ", more than " + BatchBenchmark.ALLOCATION_LIMIT);
+                failed = true;
+            }
+        }
+        if (failed)
+        {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.snksoft.crc.benchmarks;
+
+import com.github.snksoft.crc.AdaptiveCRC;
+import com.github.snksoft.crc.CRC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Throughput of every data path of {@link CRC}: static bit by bit calculation, table driven calculation
+ * over byte arrays, heap and direct ByteBuffers and the generic {@link IntFunction} data supplier.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CRCBenchmark
+{
+    @Param({"CCITT", "CRC32", "CRC32C", "CRC64ECMA"})
+    public String algorithm;
+
+    private CRC.Parameters parameters;
+    private CRC tableDriven;
+    private AdaptiveCRC adaptive;
+
+    @Setup
+    public void setUp()
+    {
+        parameters = Algorithms.byName(algorithm);
+        tableDriven = new CRC(parameters);
+        adaptive = new AdaptiveCRC(parameters);
+    }
+
+    @Benchmark
+    public long staticByteArray(MessageState message)
+    {
+        return CRC.calculateCRC(parameters, message.array);
+    }
+
+    @Benchmark
+    public long staticByteBuffer(MessageState message)
+    {
+        return CRC.calculateCRC(parameters, message.heapBuffer);
+    }
+
+    @Benchmark
+    public long staticIntFunction(MessageState message)
+    {
+        byte[] array = message.array;
+        IntFunction<Byte> supplier = i -> array[i];
+        return CRC.calculateCRC(parameters, supplier, 0, array.length);
+    }
+
+    @Benchmark
+    public long tableByteArray(MessageState message)
+    {
+        return tableDriven.calculateCRC(message.array);
+    }
+
+    @Benchmark
+    public long tableInterleavedByteArray(MessageState message)
+    {
+        return tableDriven.calculateCRCInterleaved(message.array, 0, message.array.length);
+    }
+
+    @Benchmark
+    public long adaptiveByteArray(MessageState message)
+    {
+        return adaptive.calculateCRC(message.array);
+    }
+
+    @Benchmark
+    public long tableHeapByteBuffer(MessageState message)
+    {
+        return tableDriven.calculateCRC(message.heapBuffer);
+    }
+
+    @Benchmark
+    public long tableDirectByteBuffer(MessageState message)
+    {
+        return tableDriven.calculateCRC(message.directBuffer);
+    }
+
+    @Benchmark
+    public long tableIntFunction(MessageState message)
+    {
+        byte[] array = message.array;
+        IntFunction<Byte> supplier = i -> array[i];
+        return tableDriven.finalCRC(tableDriven.update(tableDriven.init(), supplier, 0, array.length));
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.snksoft.crc.benchmarks;
+
+import com.github.snksoft.crc.CRC;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating a table driven {@link CRC} processor, which decides when the table-less static
+ * {@link CRC#calculateCRC(CRC.Parameters, byte[])} is the better choice for one-off calculations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ConstructionBenchmark
+{
+    @Param({"CCITT", "CRC32", "CRC64ECMA"})
+    public String algorithm;
+
+    private CRC.Parameters parameters;
+
+    @Setup
+    public void setUp()
+    {
+        parameters = Algorithms.byName(algorithm);
+    }
+
+    @Benchmark
+    public CRC construct()
+    {
+        return new CRC(parameters);
+    }
+
+    @Benchmark
+    public CRC constructSingleTable()
+    {
+        return new CRC(parameters, 1);
+    }
+}
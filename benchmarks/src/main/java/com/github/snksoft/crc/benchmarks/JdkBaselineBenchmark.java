@@ -0,0 +1,74 @@
+package com.github.snksoft.crc.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link CRC32} and {@link CRC32C} from the JDK, which are intrinsified by HotSpot,
+ * as a baseline for CRC32 and CRC32C numbers of {@link CRCBenchmark}.
+ * Checksums and the view of the direct buffer are set up once per thread and reset
+ * before every operation, so that only the calculation is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class JdkBaselineBenchmark
+{
+    private final CRC32 crc32 = new CRC32();
+    private final CRC32C crc32c = new CRC32C();
+    private ByteBuffer directBuffer;
+
+    @Setup
+    public void setUp(MessageState message)
+    {
+        directBuffer = message.directBuffer.duplicate();
+    }
+
+    @Benchmark
+    public long crc32ByteArray(MessageState message)
+    {
+        crc32.reset();
+        crc32.update(message.array, 0, message.array.length);
+        return crc32.getValue();
+    }
+
+    @Benchmark
+    public long crc32DirectByteBuffer()
+    {
+        crc32.reset();
+        crc32.update(directBuffer.rewind());
+        return crc32.getValue();
+    }
+
+    @Benchmark
+    public long crc32cByteArray(MessageState message)
+    {
+        crc32c.reset();
+        crc32c.update(message.array, 0, message.array.length);
+        return crc32c.getValue();
+    }
+
+    @Benchmark
+    public long crc32cDirectByteBuffer()
+    {
+        crc32c.reset();
+        crc32c.update(directBuffer.rewind());
+        return crc32c.getValue();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.snksoft.crc.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Message of a given size in all supported representations: byte array, heap and direct ByteBuffer.
+ * Sizes range from a tiny 8 byte message up to 64MB, which is well beyond any CPU cache.
+ */
+@State(Scope.Benchmark)
+public class MessageState
+{
+    @Param({"8", "64", "1024", "65536", "1048576", "67108864"})
+    public int size;
+
+    public byte[] array;
+    public ByteBuffer heapBuffer;
+    public ByteBuffer directBuffer;
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        array = new byte[size];
+        new Random(size).nextBytes(array);
+        heapBuffer = ByteBuffer.wrap(array);
+        directBuffer = ByteBuffer.allocateDirect(size);
+        directBuffer.put(array).flip();
+    }
+}
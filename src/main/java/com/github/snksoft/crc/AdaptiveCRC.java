@@ -0,0 +1,513 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ AdaptiveCRC calculates CRCs like {@link CRC} does, but picks the implementation for every chunk of data by its
+ length, so callers do not have to guess where one approach starts paying off over another:
+<ul>
+<li>while tables for the algorithm have not been built, data is processed 4 bits per lookup with a 16 entries
+table, which takes no time to build, until so much of it has been processed that building a full table would have been cheaper (tables already built by any other processor
+of the same algorithm are used right away);</li>
+<li>shorter chunks are processed with a single table, a byte per step;</li>
+<li>longer chunks are processed with "slicing-by-8" tables, 8 bytes per step;</li>
+<li>the longest chunks are split into several streams processed side by side
+(see {@link CRC#updateInterleaved(long, byte[], int, int)});</li>
+<li>algorithms computed by {@link java.util.zip.CRC32} and {@link java.util.zip.CRC32C} always use them.</li>
+</ul>
+The table element type follows CRC width, as for {@link CRC}. Lengths where implementations switch are set by
+{@link Thresholds}, which come from configuration or from a short calibration run. Engines are called through
+a switch on their class, which the width of the algorithm determines when an instance is created, and every
+branch calls a single final class. So call sites stay monomorphic and the JIT compiler can inline engines
+however many algorithms are in use at once.
+<pre>
+{@code
+    AdaptiveCRC crc = new AdaptiveCRC(new CRC.Parameters(16, 0x3D65, 0x0, false, false, 0xFFFF));
+    long value = crc.calculateCRC(message);
+}
+</pre>
+Intermediate values are exactly the same as those of {@link CRC}. Instances are thread safe.
+ * */
+public final class AdaptiveCRC
+{
+    /**
+     Message lengths at which {@link AdaptiveCRC} switches from one implementation to another.
+
+<p>
+Default thresholds can be configured with system properties <code>com.github.snksoft.crc.adaptive.table</code>,
+<code>com.github.snksoft.crc.adaptive.slicing</code> and <code>com.github.snksoft.crc.adaptive.interleaved</code>.
+If <code>com.github.snksoft.crc.adaptive.calibrate</code> is true, properties not set are found by
+{@link #calibrate(CRC.Parameters)} when defaults are first needed, which takes a fraction of a second.
+     * */
+    public static final class Thresholds
+    {
+        private static final String PREFIX = "com.github.snksoft.crc.adaptive.";
+
+        private final int table;
+        private final int slicing;
+        private final int interleaved;
+
+        /**
+         * Creates thresholds.
+         * @param table number of bytes to process with a 16 entries table, in one chunk or in total, before building a full table
+         * @param slicing minimal length of a chunk processed with slicing tables
+         * @param interleaved minimal length of a chunk processed as several interleaved streams
+         * @throws IllegalArgumentException if a threshold is negative or interleaved one is lower than slicing one
+         */
+        public Thresholds(int table, int slicing, int interleaved)
+        {
+            if (table < 0 || slicing < 0 || interleaved < slicing)
+                throw new IllegalArgumentException("Invalid thresholds: " + table + ", " + slicing + ", " + interleaved);
+
+            this.table = table;
+            this.slicing = slicing;
+            this.interleaved = interleaved;
+        }
+
+        /**
+         * Returns number of bytes processed with a 16 entries table before a full table is built.
+         * @return the threshold in bytes
+         */
+        public int getTable()
+        {
+            return table;
+        }
+
+        /**
+         * Returns minimal length of a chunk processed with slicing tables.
+         * @return the threshold in bytes
+         */
+        public int getSlicing()
+        {
+            return slicing;
+        }
+
+        /**
+         * Returns minimal length of a chunk processed as several interleaved streams.
+         * @return the threshold in bytes
+         */
+        public int getInterleaved()
+        {
+            return interleaved;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Thresholds{table=" + table + ", slicing=" + slicing + ", interleaved=" + interleaved + '}';
+        }
+
+        /**
+         * Returns thresholds used by {@link AdaptiveCRC#AdaptiveCRC(CRC.Parameters)}, configured with
+         * system properties or calibrated, as described above.
+         * @return default thresholds
+         */
+        public static Thresholds getDefault()
+        {
+            return DefaultHolder.DEFAULT;
+        }
+
+        /**
+         * Measures where implementations start paying off on this machine for specified parameters.
+         * Tables for the parameters are built and cached as a side effect.
+         * @param crcParams CRC algorithm parameters to measure with
+         * @return measured thresholds
+         */
+        public static Thresholds calibrate(CRC.Parameters crcParams)
+        {
+            return Calibration.run(crcParams);
+        }
+
+        private static Thresholds load()
+        {
+            // building a full table costs about as much as processing 1KB with the nibble table,
+            // and it saves about half of that per byte afterwards
+            Thresholds base = new Thresholds(2048, 16, 1024);
+            if (Boolean.getBoolean(PREFIX + "calibrate"))
+            {
+                // Koopman is a 32 bits algorithm not handled by the JDK, so it measures table driven engines
+                base = calibrate(CRC.Parameters.Koopman);
+            }
+            return new Thresholds(Integer.getInteger(PREFIX + "table", base.table),
+                    Integer.getInteger(PREFIX + "slicing", base.slicing),
+                    Integer.getInteger(PREFIX + "interleaved", base.interleaved));
+        }
+    }
+
+    private static final class DefaultHolder
+    {
+        static final Thresholds DEFAULT = Thresholds.load();
+    }
+
+    // classes of table and slicing engines
+    private static final int INTRINSIC = 0;
+    private static final int BYTES = 1;
+    private static final int SHORTS = 2;
+    private static final int INTS = 3;
+    private static final int LONGS = 4;
+
+    private final CRC.Parameters crcParams;
+    private final long initValue;
+    private final long mask;
+    private final int table;            // thresholds, copied for quick access
+    private final int slicing;
+    private final int interleaved;
+    private final NibbleEngine nibble;
+    private final int kind;             // class of table and slicing engines, one of the constants above
+
+    // engines are created on first use; racing threads at worst look shared ones up twice
+    private volatile Engine tableEngine;
+    private volatile Engine slicingEngine;
+    private volatile Engine interleavedEngine;
+    private long nibbleBytes;           // processed by nibble so far; updated racily, so approximate
+
+    /**
+     * Creates a processor using default thresholds.
+     * @param crcParams CRC algorithm parameters
+     * @see Thresholds#getDefault()
+     */
+    public AdaptiveCRC(CRC.Parameters crcParams)
+    {
+        this(crcParams, Thresholds.getDefault());
+    }
+
+    /**
+     * Creates a processor using specified thresholds.
+     * @param crcParams CRC algorithm parameters
+     * @param thresholds lengths at which implementations switch
+     */
+    public AdaptiveCRC(CRC.Parameters crcParams, Thresholds thresholds)
+    {
+        int width = crcParams.getWidth();
+        this.crcParams = crcParams;
+        this.mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+        this.initValue = crcParams.isReflectIn() ? Long.reverse(crcParams.getInit() & mask) >>> (64 - width) : crcParams.getInit();
+        this.table = thresholds.table;
+        this.slicing = thresholds.slicing;
+        this.interleaved = thresholds.interleaved;
+        this.nibble = new NibbleEngine(width, crcParams.getPolynomial() & mask, crcParams.isReflectIn());
+
+        // the same classes as TableCache.Entry.slicing(int) chooses
+        int kind = (width <= 8) ? BYTES : (width <= 16) ? SHORTS : (width <= 32) ? INTS : LONGS;
+        TableCache.Entry shared = IntrinsicEngine.supports(crcParams) ? TableCache.get(crcParams) : TableCache.peek(crcParams);
+        if (shared != null)
+        {
+            Engine intrinsic = shared.intrinsic(crcParams);
+            if (intrinsic != null)
+            {
+                kind = INTRINSIC;
+                tableEngine = intrinsic;
+                slicingEngine = intrinsic;
+                interleavedEngine = intrinsic;
+            }
+            else
+            {
+                tableEngine = shared.slicing(1);
+            }
+        }
+        this.kind = kind;
+    }
+
+    /**
+     * Returns parameters of the CRC algorithm this processor calculates.
+     * @return CRC algorithm parameters
+     */
+    public CRC.Parameters getParameters()
+    {
+        return crcParams;
+    }
+
+    /**
+     * Returns initial value for iterative calculation, same as {@link CRC#init()}.
+     * @return initial intermediate value
+     */
+    public long init()
+    {
+        return initValue;
+    }
+
+    /**
+     * Feeds a part of a byte array, like {@link CRC#update(long, byte[], int, int)}, using the implementation
+     * chosen by its length.
+     * @param curValue CRC intermediate value so far
+     * @param chunk data chunk to be processed by this call
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @return updated intermediate value for this CRC
+     */
+    public long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        if (length >= interleaved)
+        {
+            return updateInterleaved(interleavedEngine(), curValue, chunk, offset, length);
+        }
+        if (length >= slicing)
+        {
+            return updateSliced(slicingEngine(), curValue, chunk, offset, length);
+        }
+        Engine e = tableEngine;
+        if (e == null)
+        {
+            if ((nibbleBytes += length) <= table)
+            {
+                return nibble.update(curValue, chunk, offset, length);
+            }
+            e = tableEngine();
+        }
+        return updateSliced(e, curValue, chunk, offset, length);
+    }
+
+    /**
+     * This method works exactly like {@link #update(long, byte[], int, int)} but uses a ByteBuffer.
+     * Buffer's position, limit and byte order are not changed.
+     * @see #update(long, byte[], int, int)
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public long update(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        if (length >= interleaved)
+        {
+            return updateInterleaved(interleavedEngine(), curValue, chunk, offset, length);
+        }
+        if (length >= slicing)
+        {
+            return updateSliced(slicingEngine(), curValue, chunk, offset, length);
+        }
+        Engine e = tableEngine;
+        if (e == null)
+        {
+            if ((nibbleBytes += length) <= table)
+            {
+                return nibble.update(curValue, chunk, offset, length);
+            }
+            e = tableEngine();
+        }
+        return updateSliced(e, curValue, chunk, offset, length);
+    }
+
+    /**
+     * Returns actual CRC for the data processed so far, same as {@link CRC#finalCRC(long)}.
+     * @param curValue CRC intermediate value so far
+     * @return calculated CRC
+     */
+    public long finalCRC(long curValue)
+    {
+        long ret = curValue;
+        if (crcParams.isReflectOut() != crcParams.isReflectIn())
+        {
+            ret = Long.reverse(ret & mask) >>> (64 - crcParams.getWidth());
+        }
+        return (ret ^ crcParams.getFinalXor()) & mask;
+    }
+
+    /**
+     * Calculates CRC of a whole byte array.
+     * @param data is data to calculate CRC on
+     * @return calculated CRC
+     */
+    public long calculateCRC(byte[] data)
+    {
+        return calculateCRC(data, 0, data.length);
+    }
+
+    /**
+     * Calculates CRC of a part of a byte array.
+     * @param data is data to calculate CRC on
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @return calculated CRC
+     */
+    public long calculateCRC(byte[] data, int offset, int length)
+    {
+        return finalCRC(update(initValue, data, offset, length));
+    }
+
+    /**
+     * Calculates CRC of a part of a ByteBuffer. Buffer's position, limit and byte order are not changed.
+     * @param data is data to calculate CRC on
+     * @param offset is 0-based absolute index of the first byte to be processed
+     * @param length indicates number of bytes to be processed.
+     * @return calculated CRC
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public long calculateCRC(ByteBuffer data, int offset, int length)
+    {
+        return finalCRC(update(initValue, data, offset, length));
+    }
+
+    /** Calls a table or slicing engine through a call site of its own class */
+    private long updateSliced(Engine e, long curValue, byte[] chunk, int offset, int length)
+    {
+        switch (kind)
+        {
+            case BYTES:
+                return ((ByteSlicingEngine) e).update(curValue, chunk, offset, length);
+            case SHORTS:
+                return ((ShortSlicingEngine) e).update(curValue, chunk, offset, length);
+            case INTS:
+                return ((IntSlicingEngine) e).update(curValue, chunk, offset, length);
+            case LONGS:
+                return ((LongSlicingEngine) e).update(curValue, chunk, offset, length);
+            default:
+                return ((IntrinsicEngine) e).update(curValue, chunk, offset, length);
+        }
+    }
+
+    private long updateSliced(Engine e, long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        switch (kind)
+        {
+            case BYTES:
+                return ((ByteSlicingEngine) e).update(curValue, chunk, offset, length);
+            case SHORTS:
+                return ((ShortSlicingEngine) e).update(curValue, chunk, offset, length);
+            case INTS:
+                return ((IntSlicingEngine) e).update(curValue, chunk, offset, length);
+            case LONGS:
+                return ((LongSlicingEngine) e).update(curValue, chunk, offset, length);
+            default:
+                return ((IntrinsicEngine) e).update(curValue, chunk, offset, length);
+        }
+    }
+
+    private long updateInterleaved(Engine e, long curValue, byte[] chunk, int offset, int length)
+    {
+        return (kind == INTRINSIC)
+                ? ((IntrinsicEngine) e).update(curValue, chunk, offset, length)
+                : ((InterleavedEngine) e).update(curValue, chunk, offset, length);
+    }
+
+    private long updateInterleaved(Engine e, long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        return (kind == INTRINSIC)
+                ? ((IntrinsicEngine) e).update(curValue, chunk, offset, length)
+                : ((InterleavedEngine) e).update(curValue, chunk, offset, length);
+    }
+
+    private Engine tableEngine()
+    {
+        Engine e = tableEngine;
+        if (e == null)
+        {
+            e = TableCache.get(crcParams).slicing(1);
+            tableEngine = e;
+        }
+        return e;
+    }
+
+    private Engine slicingEngine()
+    {
+        Engine e = slicingEngine;
+        if (e == null)
+        {
+            e = TableCache.get(crcParams).slicing(8);
+            slicingEngine = e;
+        }
+        return e;
+    }
+
+    private Engine interleavedEngine()
+    {
+        Engine e = interleavedEngine;
+        if (e == null)
+        {
+            e = TableCache.get(crcParams).interleaved();
+            interleavedEngine = e;
+        }
+        return e;
+    }
+
+    /**
+     * Measures engines of one algorithm against each other. Every comparison takes the best of several rounds
+     * after a warm-up, so that compiled code is measured and a stray pause does not decide the result.
+     */
+    private static final class Calibration
+    {
+        private static final int MAX_LENGTH = 1 << 15;
+        private static final int ROUND_BYTES = 1 << 14;
+        private static final int ROUNDS = 5;
+        private static volatile long sink;
+
+        static Thresholds run(CRC.Parameters crcParams)
+        {
+            int width = crcParams.getWidth();
+            long mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+            long polynomial = crcParams.getPolynomial() & mask;
+            TableCache.Entry shared = TableCache.get(crcParams);
+            Engine nibble = new NibbleEngine(width, polynomial, crcParams.isReflectIn());
+            Engine single = shared.slicing(1);
+            Engine slicing8 = shared.slicing(8);
+            Engine interleaved = shared.interleaved();
+
+            byte[] data = new byte[MAX_LENGTH];
+            new Random(0).nextBytes(data);
+            for (int warmUp = 0; warmUp < 3; warmUp++)
+            {
+                for (Engine engine : new Engine[] { nibble, single, slicing8, interleaved })
+                {
+                    for (int length = 1; length <= MAX_LENGTH; length <<= 1)
+                    {
+                        measure(engine, data, length);
+                    }
+                }
+            }
+
+            // nibbles pay off while a full table has saved less than building it costs
+            long build = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++)
+            {
+                long start = System.nanoTime();
+                sink += TableCache.buildTable(width, polynomial, crcParams.isReflectIn())[1];
+                build = Math.min(build, System.nanoTime() - start);
+            }
+            double saved = (measure(nibble, data, 1024) - measure(single, data, 1024)) / 1024.0;
+            int table = (saved <= 0) ? Integer.MAX_VALUE : (int) Math.min(Integer.MAX_VALUE, build / saved);
+
+            int slicing = crossover(single, slicing8, data);
+            int interleavedLength = Math.max(slicing, crossover(slicing8, interleaved, data));
+            return new Thresholds(table, slicing, interleavedLength);
+        }
+
+        /**
+         * Returns the shortest power of two length at which the second engine is clearly faster than the first one.
+         * Engines falling back on each other for short chunks run at the same speed, and noise must not decide.
+         */
+        private static int crossover(Engine slower, Engine faster, byte[] data)
+        {
+            for (int length = 1; length <= data.length; length <<= 1)
+            {
+                if (measure(faster, data, length) * 9 < measure(slower, data, length) * 8)
+                {
+                    return length;
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        /**
+         * Returns the best time of processing about {@link #ROUND_BYTES} bytes in chunks of specified length.
+         */
+        private static long measure(Engine engine, byte[] data, int length)
+        {
+            int calls = Math.max(1, ROUND_BYTES / length);
+            long best = Long.MAX_VALUE;
+            long value = 0;
+            for (int round = 0; round < ROUNDS; round++)
+            {
+                long start = System.nanoTime();
+                for (int i = 0; i < calls; i++)
+                {
+                    value = engine.update(value, data, 0, length);
+                }
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            sink += value;
+            return best;
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.github.snksoft.crc;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ Algorithm is a catalogue of well known CRC algorithms up to 64 bits wide, as listed in
+ "Catalogue of parametrised CRC algorithms" (http://reveng.sourceforge.net/crc-catalogue/).
+ Each algorithm comes with its parameters, its check value (CRC of ASCII string "123456789")
+ and a lazily created shared {@link CRC} processor.
+
+<p>
+Algorithms can be looked up by their catalogue name or any of their aliases, ignoring case.
+<pre>
+{@code
+    CRC modbus = Algorithm.forName("MODBUS").crc();
+    long crc = modbus.calculateCRC("123456789".getBytes());
+    System.out.printf("CRC is 0x%04X\n", crc); // prints "CRC is 0x4B37"
+}
+</pre>
+
+<p>
+Nothing is calculated for an algorithm until its {@link #crc()} is called for the first time. Lookup tables
+come from the same process-wide cache as for {@link CRC#CRC(CRC.Parameters)}, so algorithms sharing width,
+polynomial and input reflection (e.g. CRC-32/ISO-HDLC and CRC-32/JAMCRC) share their tables as well.
+ * */
+public enum Algorithm
+{
+    CRC_3_GSM("CRC-3/GSM", 3, 0x3, 0x0, false, false, 0x7, 0x4),
+    CRC_3_ROHC("CRC-3/ROHC", 3, 0x3, 0x7, true, true, 0x0, 0x6),
+
+    CRC_4_G_704("CRC-4/G-704", 4, 0x3, 0x0, true, true, 0x0, 0x7, "CRC-4/ITU"),
+    CRC_4_INTERLAKEN("CRC-4/INTERLAKEN", 4, 0x3, 0xF, false, false, 0xF, 0xB),
+
+    CRC_5_EPC_C1G2("CRC-5/EPC-C1G2", 5, 0x09, 0x09, false, false, 0x00, 0x00, "CRC-5/EPC"),
+    CRC_5_G_704("CRC-5/G-704", 5, 0x15, 0x00, true, true, 0x00, 0x07, "CRC-5/ITU"),
+    CRC_5_USB("CRC-5/USB", 5, 0x05, 0x1F, true, true, 0x1F, 0x19),
+
+    CRC_6_CDMA2000_A("CRC-6/CDMA2000-A", 6, 0x27, 0x3F, false, false, 0x00, 0x0D),
+    CRC_6_CDMA2000_B("CRC-6/CDMA2000-B", 6, 0x07, 0x3F, false, false, 0x00, 0x3B),
+    CRC_6_DARC("CRC-6/DARC", 6, 0x19, 0x00, true, true, 0x00, 0x26),
+    CRC_6_G_704("CRC-6/G-704", 6, 0x03, 0x00, true, true, 0x00, 0x06, "CRC-6/ITU"),
+    CRC_6_GSM("CRC-6/GSM", 6, 0x2F, 0x00, false, false, 0x3F, 0x13),
+
+    CRC_7_MMC("CRC-7/MMC", 7, 0x09, 0x00, false, false, 0x00, 0x75, "CRC-7"),
+    CRC_7_ROHC("CRC-7/ROHC", 7, 0x4F, 0x7F, true, true, 0x00, 0x53),
+    CRC_7_UMTS("CRC-7/UMTS", 7, 0x45, 0x00, false, false, 0x00, 0x61),
+
+    CRC_8_AUTOSAR("CRC-8/AUTOSAR", 8, 0x2F, 0xFF, false, false, 0xFF, 0xDF),
+    CRC_8_BLUETOOTH("CRC-8/BLUETOOTH", 8, 0xA7, 0x00, true, true, 0x00, 0x26),
+    CRC_8_CDMA2000("CRC-8/CDMA2000", 8, 0x9B, 0xFF, false, false, 0x00, 0xDA),
+    CRC_8_DARC("CRC-8/DARC", 8, 0x39, 0x00, true, true, 0x00, 0x15),
+    CRC_8_DVB_S2("CRC-8/DVB-S2", 8, 0xD5, 0x00, false, false, 0x00, 0xBC),
+    CRC_8_GSM_A("CRC-8/GSM-A", 8, 0x1D, 0x00, false, false, 0x00, 0x37),
+    CRC_8_GSM_B("CRC-8/GSM-B", 8, 0x49, 0x00, false, false, 0xFF, 0x94),
+    CRC_8_HITAG("CRC-8/HITAG", 8, 0x1D, 0xFF, false, false, 0x00, 0xB4),
+    CRC_8_I_432_1("CRC-8/I-432-1", 8, 0x07, 0x00, false, false, 0x55, 0xA1, "CRC-8/ITU"),
+    CRC_8_I_CODE("CRC-8/I-CODE", 8, 0x1D, 0xFD, false, false, 0x00, 0x7E),
+    CRC_8_LTE("CRC-8/LTE", 8, 0x9B, 0x00, false, false, 0x00, 0xEA),
+    CRC_8_MAXIM_DOW("CRC-8/MAXIM-DOW", 8, 0x31, 0x00, true, true, 0x00, 0xA1, "CRC-8/MAXIM", "DOW-CRC"),
+    CRC_8_MIFARE_MAD("CRC-8/MIFARE-MAD", 8, 0x1D, 0xC7, false, false, 0x00, 0x99),
+    CRC_8_NRSC_5("CRC-8/NRSC-5", 8, 0x31, 0xFF, false, false, 0x00, 0xF7),
+    CRC_8_OPENSAFETY("CRC-8/OPENSAFETY", 8, 0x2F, 0x00, false, false, 0x00, 0x3E),
+    CRC_8_ROHC("CRC-8/ROHC", 8, 0x07, 0xFF, true, true, 0x00, 0xD0),
+    CRC_8_SAE_J1850("CRC-8/SAE-J1850", 8, 0x1D, 0xFF, false, false, 0xFF, 0x4B),
+    CRC_8_SMBUS("CRC-8/SMBUS", 8, 0x07, 0x00, false, false, 0x00, 0xF4, "CRC-8"),
+    CRC_8_TECH_3250("CRC-8/TECH-3250", 8, 0x1D, 0xFF, true, true, 0x00, 0x97, "CRC-8/AES", "CRC-8/EBU"),
+    CRC_8_WCDMA("CRC-8/WCDMA", 8, 0x9B, 0x00, true, true, 0x00, 0x25),
+
+    CRC_10_ATM("CRC-10/ATM", 10, 0x233, 0x000, false, false, 0x000, 0x199, "CRC-10", "CRC-10/I-610"),
+    CRC_10_CDMA2000("CRC-10/CDMA2000", 10, 0x3D9, 0x3FF, false, false, 0x000, 0x233),
+    CRC_10_GSM("CRC-10/GSM", 10, 0x175, 0x000, false, false, 0x3FF, 0x12A),
+
+    CRC_11_FLEXRAY("CRC-11/FLEXRAY", 11, 0x385, 0x01A, false, false, 0x000, 0x5A3, "CRC-11"),
+    CRC_11_UMTS("CRC-11/UMTS", 11, 0x307, 0x000, false, false, 0x000, 0x061),
+
+    CRC_12_CDMA2000("CRC-12/CDMA2000", 12, 0xF13, 0xFFF, false, false, 0x000, 0xD4D),
+    CRC_12_DECT("CRC-12/DECT", 12, 0x80F, 0x000, false, false, 0x000, 0xF5B, "X-CRC-12"),
+    CRC_12_GSM("CRC-12/GSM", 12, 0xD31, 0x000, false, false, 0xFFF, 0xB34),
+    CRC_12_UMTS("CRC-12/UMTS", 12, 0x80F, 0x000, false, true, 0x000, 0xDAF, "CRC-12/3GPP"),
+
+    CRC_13_BBC("CRC-13/BBC", 13, 0x1CF5, 0x0000, false, false, 0x0000, 0x04FA),
+
+    CRC_14_DARC("CRC-14/DARC", 14, 0x0805, 0x0000, true, true, 0x0000, 0x082D),
+    CRC_14_GSM("CRC-14/GSM", 14, 0x202D, 0x0000, false, false, 0x3FFF, 0x30AE),
+
+    CRC_15_CAN("CRC-15/CAN", 15, 0x4599, 0x0000, false, false, 0x0000, 0x059E, "CRC-15"),
+    CRC_15_MPT1327("CRC-15/MPT1327", 15, 0x6815, 0x0000, false, false, 0x0001, 0x2566),
+
+    CRC_16_ARC("CRC-16/ARC", 16, 0x8005, 0x0000, true, true, 0x0000, 0xBB3D, "ARC", "CRC-16", "CRC-16/LHA", "CRC-IBM"),
+    CRC_16_CDMA2000("CRC-16/CDMA2000", 16, 0xC867, 0xFFFF, false, false, 0x0000, 0x4C06),
+    CRC_16_CMS("CRC-16/CMS", 16, 0x8005, 0xFFFF, false, false, 0x0000, 0xAEE7),
+    CRC_16_DDS_110("CRC-16/DDS-110", 16, 0x8005, 0x800D, false, false, 0x0000, 0x9ECF),
+    CRC_16_DECT_R("CRC-16/DECT-R", 16, 0x0589, 0x0000, false, false, 0x0001, 0x007E, "R-CRC-16"),
+    CRC_16_DECT_X("CRC-16/DECT-X", 16, 0x0589, 0x0000, false, false, 0x0000, 0x007F, "X-CRC-16"),
+    CRC_16_DNP("CRC-16/DNP", 16, 0x3D65, 0x0000, true, true, 0xFFFF, 0xEA82),
+    CRC_16_EN_13757("CRC-16/EN-13757", 16, 0x3D65, 0x0000, false, false, 0xFFFF, 0xC2B7),
+    CRC_16_GENIBUS("CRC-16/GENIBUS", 16, 0x1021, 0xFFFF, false, false, 0xFFFF, 0xD64E, "CRC-16/DARC", "CRC-16/EPC", "CRC-16/EPC-C1G2", "CRC-16/I-CODE"),
+    CRC_16_GSM("CRC-16/GSM", 16, 0x1021, 0x0000, false, false, 0xFFFF, 0xCE3C),
+    CRC_16_IBM_3740("CRC-16/IBM-3740", 16, 0x1021, 0xFFFF, false, false, 0x0000, 0x29B1, "CRC-16/AUTOSAR", "CRC-16/CCITT-FALSE"),
+    CRC_16_IBM_SDLC("CRC-16/IBM-SDLC", 16, 0x1021, 0xFFFF, true, true, 0xFFFF, 0x906E, "CRC-16/ISO-HDLC", "CRC-16/ISO-IEC-14443-3-B", "CRC-16/X-25", "CRC-B", "X-25"),
+    CRC_16_ISO_IEC_14443_3_A("CRC-16/ISO-IEC-14443-3-A", 16, 0x1021, 0xC6C6, true, true, 0x0000, 0xBF05, "CRC-A"),
+    CRC_16_KERMIT("CRC-16/KERMIT", 16, 0x1021, 0x0000, true, true, 0x0000, 0x2189, "CRC-16/BLUETOOTH", "CRC-16/CCITT", "CRC-16/CCITT-TRUE", "CRC-16/V-41-LSB", "CRC-CCITT", "KERMIT"),
+    CRC_16_LJ1200("CRC-16/LJ1200", 16, 0x6F63, 0x0000, false, false, 0x0000, 0xBDF4),
+    CRC_16_M17("CRC-16/M17", 16, 0x5935, 0xFFFF, false, false, 0x0000, 0x772B),
+    CRC_16_MAXIM_DOW("CRC-16/MAXIM-DOW", 16, 0x8005, 0x0000, true, true, 0xFFFF, 0x44C2, "CRC-16/MAXIM"),
+    CRC_16_MCRF4XX("CRC-16/MCRF4XX", 16, 0x1021, 0xFFFF, true, true, 0x0000, 0x6F91),
+    CRC_16_MODBUS("CRC-16/MODBUS", 16, 0x8005, 0xFFFF, true, true, 0x0000, 0x4B37, "MODBUS"),
+    CRC_16_NRSC_5("CRC-16/NRSC-5", 16, 0x080B, 0xFFFF, true, true, 0x0000, 0xA066),
+    CRC_16_OPENSAFETY_A("CRC-16/OPENSAFETY-A", 16, 0x5935, 0x0000, false, false, 0x0000, 0x5D38),
+    CRC_16_OPENSAFETY_B("CRC-16/OPENSAFETY-B", 16, 0x755B, 0x0000, false, false, 0x0000, 0x20FE),
+    CRC_16_PROFIBUS("CRC-16/PROFIBUS", 16, 0x1DCF, 0xFFFF, false, false, 0xFFFF, 0xA819, "CRC-16/IEC-61158-2"),
+    CRC_16_RIELLO("CRC-16/RIELLO", 16, 0x1021, 0xB2AA, true, true, 0x0000, 0x63D0),
+    CRC_16_SPI_FUJITSU("CRC-16/SPI-FUJITSU", 16, 0x1021, 0x1D0F, false, false, 0x0000, 0xE5CC, "CRC-16/AUG-CCITT"),
+    CRC_16_T10_DIF("CRC-16/T10-DIF", 16, 0x8BB7, 0x0000, false, false, 0x0000, 0xD0DB),
+    CRC_16_TELEDISK("CRC-16/TELEDISK", 16, 0xA097, 0x0000, false, false, 0x0000, 0x0FB3),
+    CRC_16_TMS37157("CRC-16/TMS37157", 16, 0x1021, 0x89EC, true, true, 0x0000, 0x26B1),
+    CRC_16_UMTS("CRC-16/UMTS", 16, 0x8005, 0x0000, false, false, 0x0000, 0xFEE8, "CRC-16/BUYPASS", "CRC-16/VERIFONE"),
+    CRC_16_USB("CRC-16/USB", 16, 0x8005, 0xFFFF, true, true, 0xFFFF, 0xB4C8),
+    CRC_16_XMODEM("CRC-16/XMODEM", 16, 0x1021, 0x0000, false, false, 0x0000, 0x31C3, "CRC-16/ACORN", "CRC-16/LTE", "CRC-16/V-41-MSB", "XMODEM", "ZMODEM"),
+
+    CRC_17_CAN_FD("CRC-17/CAN-FD", 17, 0x1685B, 0x00000, false, false, 0x00000, 0x04F03),
+
+    CRC_21_CAN_FD("CRC-21/CAN-FD", 21, 0x102899, 0x000000, false, false, 0x000000, 0x0ED841),
+
+    CRC_24_BLE("CRC-24/BLE", 24, 0x00065B, 0x555555, true, true, 0x000000, 0xC25A56),
+    CRC_24_FLEXRAY_A("CRC-24/FLEXRAY-A", 24, 0x5D6DCB, 0xFEDCBA, false, false, 0x000000, 0x7979BD),
+    CRC_24_FLEXRAY_B("CRC-24/FLEXRAY-B", 24, 0x5D6DCB, 0xABCDEF, false, false, 0x000000, 0x1F23B8),
+    CRC_24_INTERLAKEN("CRC-24/INTERLAKEN", 24, 0x328B63, 0xFFFFFF, false, false, 0xFFFFFF, 0xB4F3E6),
+    CRC_24_LTE_A("CRC-24/LTE-A", 24, 0x864CFB, 0x000000, false, false, 0x000000, 0xCDE703),
+    CRC_24_LTE_B("CRC-24/LTE-B", 24, 0x800063, 0x000000, false, false, 0x000000, 0x23EF52),
+    CRC_24_OPENPGP("CRC-24/OPENPGP", 24, 0x864CFB, 0xB704CE, false, false, 0x000000, 0x21CF02, "CRC-24"),
+    CRC_24_OS_9("CRC-24/OS-9", 24, 0x800063, 0xFFFFFF, false, false, 0xFFFFFF, 0x200FA5),
+
+    CRC_30_CDMA("CRC-30/CDMA", 30, 0x2030B9C7, 0x3FFFFFFF, false, false, 0x3FFFFFFF, 0x04C34ABF),
+
+    CRC_31_PHILIPS("CRC-31/PHILIPS", 31, 0x04C11DB7, 0x7FFFFFFF, false, false, 0x7FFFFFFF, 0x0CE9E46C),
+
+    CRC_32_AIXM("CRC-32/AIXM", 32, 0x814141ABL, 0x00000000L, false, false, 0x00000000L, 0x3010BF7FL, "CRC-32Q"),
+    CRC_32_AUTOSAR("CRC-32/AUTOSAR", 32, 0xF4ACFB13L, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0x1697D06AL),
+    CRC_32_BASE91_D("CRC-32/BASE91-D", 32, 0xA833982BL, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0x87315576L, "CRC-32D"),
+    CRC_32_BZIP2("CRC-32/BZIP2", 32, 0x04C11DB7L, 0xFFFFFFFFL, false, false, 0xFFFFFFFFL, 0xFC891918L, "CRC-32/AAL5", "CRC-32/DECT-B", "B-CRC-32"),
+    CRC_32_CD_ROM_EDC("CRC-32/CD-ROM-EDC", 32, 0x8001801BL, 0x00000000L, true, true, 0x00000000L, 0x6EC2EDC4L),
+    CRC_32_CKSUM("CRC-32/CKSUM", 32, 0x04C11DB7L, 0x00000000L, false, false, 0xFFFFFFFFL, 0x765E7680L, "CKSUM", "CRC-32/POSIX"),
+    CRC_32_ISCSI("CRC-32/ISCSI", 32, 0x1EDC6F41L, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0xE3069283L, "CRC-32/BASE91-C", "CRC-32/CASTAGNOLI", "CRC-32/INTERLAKEN", "CRC-32C", "CRC-32/NVME"),
+    CRC_32_ISO_HDLC("CRC-32/ISO-HDLC", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL, 0xCBF43926L, "CRC-32", "CRC-32/ADCCP", "CRC-32/V-42", "CRC-32/XZ", "PKZIP"),
+    CRC_32_JAMCRC("CRC-32/JAMCRC", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true, 0x00000000L, 0x340BC6D9L, "JAMCRC"),
+    CRC_32_MEF("CRC-32/MEF", 32, 0x741B8CD7L, 0xFFFFFFFFL, true, true, 0x00000000L, 0xD2C22F51L),
+    CRC_32_MPEG_2("CRC-32/MPEG-2", 32, 0x04C11DB7L, 0xFFFFFFFFL, false, false, 0x00000000L, 0x0376E6E7L),
+    CRC_32_XFER("CRC-32/XFER", 32, 0x000000AFL, 0x00000000L, false, false, 0x00000000L, 0xBD0BE338L, "XFER"),
+
+    CRC_40_GSM("CRC-40/GSM", 40, 0x0004820009L, 0x0000000000L, false, false, 0xFFFFFFFFFFL, 0xD4164FC646L),
+
+    CRC_64_ECMA_182("CRC-64/ECMA-182", 64, 0x42F0E1EBA9EA3693L, 0x0000000000000000L, false, false, 0x0000000000000000L, 0x6C40DF5F0B497347L, "CRC-64"),
+    CRC_64_GO_ISO("CRC-64/GO-ISO", 64, 0x000000000000001BL, 0xFFFFFFFFFFFFFFFFL, true, true, 0xFFFFFFFFFFFFFFFFL, 0xB90956C775A41001L),
+    CRC_64_MS("CRC-64/MS", 64, 0x259C84CBA6426349L, 0xFFFFFFFFFFFFFFFFL, true, true, 0x0000000000000000L, 0x75D4B74F024ECEEAL),
+    CRC_64_NVME("CRC-64/NVME", 64, 0xAD93D23594C93659L, 0xFFFFFFFFFFFFFFFFL, true, true, 0xFFFFFFFFFFFFFFFFL, 0xAE8B14860A799888L),
+    CRC_64_REDIS("CRC-64/REDIS", 64, 0xAD93D23594C935A9L, 0x0000000000000000L, true, true, 0x0000000000000000L, 0xE9C6D914C4B8D9CAL),
+    CRC_64_WE("CRC-64/WE", 64, 0x42F0E1EBA9EA3693L, 0xFFFFFFFFFFFFFFFFL, false, false, 0xFFFFFFFFFFFFFFFFL, 0x62EC59E3F1A4F00AL),
+    CRC_64_XZ("CRC-64/XZ", 64, 0x42F0E1EBA9EA3693L, 0xFFFFFFFFFFFFFFFFL, true, true, 0xFFFFFFFFFFFFFFFFL, 0x995DC9BBDF1939FAL, "CRC-64/GO-ECMA");
+
+    private final String name;
+    private final List<String> aliases;
+    private final CRC.Parameters parameters;
+    private final long check;
+    private volatile CRC crc; // created on first use
+
+    Algorithm(String name, int width, long polynomial, long init, boolean reflectIn, boolean reflectOut, long finalXor,
+              long check, String... aliases)
+    {
+        this.name = name;
+        this.aliases = Collections.unmodifiableList(Arrays.asList(aliases));
+        this.parameters = new CRC.Parameters(width, polynomial, init, reflectIn, reflectOut, finalXor);
+        this.check = check;
+    }
+
+    /**
+     * Returns name of the algorithm as it appears in the catalogue, e.g. "CRC-16/MODBUS".
+     * @return name of the algorithm
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Returns other names the algorithm is known by, e.g. "MODBUS" for "CRC-16/MODBUS".
+     * @return unmodifiable list of aliases, possibly empty
+     */
+    public List<String> getAliases()
+    {
+        return aliases;
+    }
+
+    /**
+     * @return parameters of the algorithm
+     */
+    public CRC.Parameters getParameters()
+    {
+        return parameters;
+    }
+
+    /**
+     * Returns check value of the algorithm, i.e. CRC of the nine ASCII bytes "123456789".
+     * @return check value
+     */
+    public long getCheck()
+    {
+        return check;
+    }
+
+    /**
+     * Returns table driven CRC processor for the algorithm. It is created on first call and shared afterwards,
+     * which is safe because CRC processors keep no calculation state.
+     * @return CRC processor for the algorithm
+     */
+    public CRC crc()
+    {
+        CRC result = crc;
+        if (result == null)
+        {
+            // a race here only results in an extra processor being created
+            result = new CRC(parameters);
+            crc = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new {@link java.util.zip.Checksum} calculating CRC with this algorithm's shared processor.
+     * @return checksum in its initial state
+     */
+    public CRCChecksum checksum()
+    {
+        return new CRCChecksum(crc());
+    }
+
+    /**
+     * Looks up an algorithm by its catalogue name or any of its aliases, ignoring case.
+     * @param name name or alias of the algorithm, e.g. "CRC-32/ISCSI" or "crc-32c"
+     * @return the algorithm
+     * @throws IllegalArgumentException if there is no algorithm with such name
+     */
+    public static Algorithm forName(String name)
+    {
+        Algorithm algorithm = Names.BY_NAME.get(name.toUpperCase(Locale.ROOT));
+        if (algorithm == null)
+            throw new IllegalArgumentException("Unknown CRC algorithm: " + name);
+        return algorithm;
+    }
+
+    @Override
+    public String toString()
+    {
+        return name;
+    }
+
+    /** Lookup map is only built when first needed */
+    private static final class Names
+    {
+        static final Map<String, Algorithm> BY_NAME = new HashMap<>();
+
+        static
+        {
+            for (Algorithm algorithm : values())
+            {
+                BY_NAME.put(algorithm.name.toUpperCase(Locale.ROOT), algorithm);
+                for (String alias : algorithm.aliases)
+                {
+                    BY_NAME.put(alias.toUpperCase(Locale.ROOT), algorithm);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Table driven engine for CRCs up to 8 bits wide, keeping tables in <code>byte</code> arrays.
+ * <p>
+ * With register no wider than a byte, every input byte simply replaces the register with a table entry,
+ * so reflected and non-reflected algorithms only differ in their tables: reflected registers are kept in
+ * the lowest bits and non-reflected ones are left-aligned in 8 bits. Bytes of a word are independent
+ * of their order and are always consumed little-endian.
+ */
+final class ByteSlicingEngine extends Engine
+{
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final int shift;        // 8 - width for MSB first algorithms, 0 for reflected ones
+    private final int slices;       // 1, 8 or 16
+    private final byte[][] tables;
+
+    /**
+     * Builds slicing tables from a regular 256 entries table.
+     * @param crctable table where entry i is the CRC register after feeding byte i into a zero register
+     * @param width width of the CRC expressed in bits, at most 8
+     * @param reflected whether the algorithm has reflected input
+     * @param slices number of tables to build; must be 1, 8 or 16
+     */
+    ByteSlicingEngine(long[] crctable, int width, boolean reflected, int slices)
+    {
+        if (slices != 1 && slices != 8 && slices != 16)
+            throw new IllegalArgumentException("Unsupported number of tables: " + slices);
+
+        this.shift = reflected ? 0 : 8 - width;
+        this.slices = slices;
+        this.tables = new byte[slices][256];
+
+        byte[] t0 = tables[0];
+        for (int i = 0; i < 256; i++)
+        {
+            t0[i] = (byte) (crctable[i] << shift);
+        }
+        for (int k = 1; k < slices; k++)
+        {
+            byte[] prev = tables[k - 1];
+            byte[] cur = tables[k];
+            for (int i = 0; i < 256; i++)
+            {
+                cur[i] = t0[prev[i] & 0xFF];
+            }
+        }
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        byte[][] t = tables;
+        int crc = (int) (curValue << shift) & 0xFF;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices == 16)
+        {
+            byte[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            byte[] t8 = t[8], t9 = t[9], t10 = t[10], t11 = t[11], t12 = t[12], t13 = t[13], t14 = t[14], t15 = t[15];
+            for (; end - i >= 16; i += 16)
+            {
+                long x = crc ^ (long) LE_LONG.get(chunk, i);
+                long y = (long) LE_LONG.get(chunk, i + 8);
+                crc = (t15[(int) x & 0xFF] ^ t14[(int) (x >>> 8) & 0xFF]
+                     ^ t13[(int) (x >>> 16) & 0xFF] ^ t12[(int) (x >>> 24) & 0xFF]
+                     ^ t11[(int) (x >>> 32) & 0xFF] ^ t10[(int) (x >>> 40) & 0xFF]
+                     ^ t9[(int) (x >>> 48) & 0xFF] ^ t8[(int) (x >>> 56)]
+                     ^ t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+                     ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+                     ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+                     ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)]) & 0xFF;
+            }
+        }
+        if (slices >= 8)
+        {
+            byte[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long x = crc ^ (long) LE_LONG.get(chunk, i);
+                crc = (t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                     ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                     ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                     ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)]) & 0xFF;
+            }
+        }
+
+        byte[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[(crc ^ chunk[i]) & 0xFF] & 0xFF;
+        }
+        return crc >>> shift;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        byte[][] t = tables;
+        int crc = (int) (curValue << shift) & 0xFF;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices >= 8)
+        {
+            boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+            byte[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long w = chunk.getLong(i);
+                long x = crc ^ (swap ? Long.reverseBytes(w) : w);
+                crc = (t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                     ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                     ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                     ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)]) & 0xFF;
+            }
+        }
+
+        byte[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[(crc ^ chunk.get(i)) & 0xFF] & 0xFF;
+        }
+        return crc >>> shift;
+    }
+}
@@ -1,6 +1,13 @@
 package com.github.snksoft.crc;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntFunction;
 
 // Copyright 2016, S&K Software Development Ltd.
@@ -68,12 +75,12 @@ public class CRC
      * */
     public static class Parameters
     {
-        private int width;   // Width of the CRC expressed in bits
-        private long polynomial; // Polynomial used in this CRC calculation
-        private boolean reflectIn;   // Refin indicates whether input bytes should be reflected
-        private boolean reflectOut;   // Refout indicates whether output bytes should be reflected
-        private long init; // Init is initial value for CRC calculation
-        private long finalXor; // Xor is a value for final xor to be applied before returning result
+        private final int width;   // Width of the CRC expressed in bits
+        private final long polynomial; // Polynomial used in this CRC calculation
+        private final boolean reflectIn;   // Refin indicates whether input bytes should be reflected
+        private final boolean reflectOut;   // Refout indicates whether output bytes should be reflected
+        private final long init; // Init is initial value for CRC calculation
+        private final long finalXor; // Xor is a value for final xor to be applied before returning result
 
         public Parameters(int width, long polynomial, long init, boolean reflectIn, boolean reflectOut, long finalXor)
         {
@@ -125,6 +132,41 @@ public class CRC
             return finalXor;
         }
 
+        /**
+         * Parameters are equal if they define the same algorithm, i.e. all their values are equal.
+         */
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+            Parameters other = (Parameters) o;
+            return width == other.width && polynomial == other.polynomial
+                    && reflectIn == other.reflectIn && reflectOut == other.reflectOut
+                    && init == other.init && finalXor == other.finalXor;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = width;
+            result = 31 * result + Long.hashCode(polynomial);
+            result = 31 * result + (reflectIn ? 1 : 0);
+            result = 31 * result + (reflectOut ? 1 : 0);
+            result = 31 * result + Long.hashCode(init);
+            result = 31 * result + Long.hashCode(finalXor);
+            return result;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Parameters(width=%d, polynomial=0x%X, init=0x%X, reflectIn=%b, reflectOut=%b, finalXor=0x%X)",
+                    width, polynomial, init, reflectIn, reflectOut, finalXor);
+        }
+
         /** CCITT CRC parameters */
         public static final Parameters CCITT = new Parameters(16, 0x1021, 0x00FFFF, false, false, 0x0);
         /** CRC16 CRC parameters, also known as ARC */
@@ -152,6 +194,29 @@ public class CRC
 
     }
 
+    /**
+     * ByteSupplier is a source of bytes indexed by position, like {@link ByteBuffer#get(int)}.
+     * It returns primitive bytes, so unlike a plain {@code IntFunction<Byte>} no boxing is involved.
+     * It still extends {@code IntFunction<Byte>}, so it can be passed wherever a data supplier was accepted before
+     * and lambdas like {@code i -> data[i]} resolve to the overloads taking ByteSupplier.
+     * */
+    @FunctionalInterface
+    public interface ByteSupplier extends IntFunction<Byte>
+    {
+        /**
+         * Returns the byte at specified position.
+         * @param index position of the byte
+         * @return the byte at specified position
+         */
+        byte getByte(int index);
+
+        @Override
+        default Byte apply(int index)
+        {
+            return getByte(index);
+        }
+    }
+
     /**
      * Reverses order of last count bits.
      * @param  in value which bits need to be reversed
@@ -201,16 +266,11 @@ public class CRC
     }
 
     /**
-     * This method implements simple straight forward bit by bit calculation
-     * and allows to calculate CRC of any part of the provided byte array.
-     * It is relatively slow for large amounts of data, but does not require
-     * any preparation steps. As a result, it might be faster in some cases
-     * then building a table required for faster calculation.
-
-     * Note: this implementation follows section 8 ("A Straightforward CRC Implementation")
-     * of Ross N. Williams paper as even though final/sample implementation of this algorithm
-     * provided near the end of that paper (and followed by most other implementations)
-     * is a bit faster, it does not work for polynomials shorter than 8 bits.
+     * This method calculates CRC of any part of the provided byte array without lookup tables
+     * built in advance. Data is processed 4 bits per lookup in a 16 entries table, which takes
+     * only 15 steps to build on every call, so even a few bytes are processed faster than bit by bit,
+     * while building full tables (see {@link #CRC(Parameters)}) only pays off for larger amounts of data
+     * or repeated calculations. All widths are handled alike, including the ones shorter than 8 bits.
 
      * @param  crcParams CRC algorithm parameters
      * @param  data data for the CRC calculation
@@ -220,56 +280,30 @@ public class CRC
      */
     public static long calculateCRC(Parameters crcParams, byte[] data, int offset, int length)
     {
-        long curValue = crcParams.init;
-        long topBit = 1L << (crcParams.width - 1);
-        long mask = (topBit << 1) - 1;
-        int end = offset + length;
-
-        for (int i = offset; i < end; i ++)
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        long curValue = nibbleEngine(crcParams).update(nibbleInit(crcParams), data, offset, length);
+        if (CRCMetrics.ENABLED)
         {
-            long curByte = ((long)(data[i])) & 0x00FFL;
-            if (crcParams.reflectIn)
-            {
-                curByte = reflect(curByte, 8);
-            }
-
-            for (int j = 0x80; j != 0; j >>= 1)
-            {
-                long bit = curValue & topBit;
-                curValue <<= 1;
-
-                if ((curByte & j) != 0)
-                {
-                    bit ^= topBit;
-                }
-
-                if (bit != 0)
-                {
-                    curValue ^= crcParams.polynomial;
-                }
-            }
-
-        }
-
-        if (crcParams.reflectOut)
-        {
-            curValue = reflect(curValue, crcParams.width);
+            CRCMetrics.processed(CRCMetrics.DataPath.BITWISE, crcParams, length, timing);
         }
-
-        curValue = curValue ^ crcParams.finalXor;
-
-        return curValue & mask;
+        return nibbleFinal(crcParams, curValue);
     }
 
     /**
      * This method calculates CRC over a portion of a ByteBuffer.
-     * Underneath, it calls {@link #calculateCRC(Parameters, IntFunction, int, int)} and uses
-     * {@link ByteBuffer#get(int)} as the data supplier function.
+     * Buffers backed by an accessible array are processed by {@link #calculateCRC(Parameters, byte[], int, int)},
+     * other buffers (direct and read-only ones) by {@link #calculateCRC(Parameters, ByteSupplier, int, int)}
+     * using {@link ByteBuffer#get(int)} as the data supplier function.
      * @see #calculateCRC(Parameters, byte[], int, int)
      */
     public static long calculateCRC(Parameters crcParams, ByteBuffer data, int offset, int length)
     {
-        return calculateCRC(crcParams, data::get, offset, length);
+        Objects.checkFromIndexSize(offset, length, data.limit());
+        if (data.hasArray())
+        {
+            return calculateCRC(crcParams, data.array(), data.arrayOffset() + offset, length);
+        }
+        return calculateCRC(crcParams, (ByteSupplier) data::get, offset, length);
     }
 
     /**
@@ -291,52 +325,89 @@ public class CRC
      */
     public static long calculateCRC(Parameters crcParams, IntFunction<Byte> dataSupplier, int offset, int length)
     {
-        long curValue = crcParams.init;
-        long topBit = 1L << (crcParams.width - 1);
-        long mask = (topBit << 1) - 1;
-        int end = offset + length;
+        return calculateCRC(crcParams, asByteSupplier(dataSupplier), offset, length);
+    }
 
-        for (int i = offset; i < end; i ++)
+    /**
+     * This method works exactly like {@link #calculateCRC(Parameters, IntFunction, int, int)} but the data supplier
+     * returns primitive bytes, which spares a boxing conversion for every byte.
+     * @see #calculateCRC(Parameters, byte[], int, int)
+
+     * @param  crcParams CRC algorithm parameters
+     * @param  dataSupplier a function taking an index of a byte and returning the byte
+     * @param offset is 0-based offset of the data to be processed
+     * @param length indicates number of bytes to be processed.
+     * @return      the CRC value of the data provided
+     */
+    public static long calculateCRC(Parameters crcParams, ByteSupplier dataSupplier, int offset, int length)
+    {
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        long curValue = nibbleEngine(crcParams).update(nibbleInit(crcParams), dataSupplier, offset, length);
+        if (CRCMetrics.ENABLED)
         {
-            long dataByte = dataSupplier.apply(i);
-            long curByte = dataByte & 0x00FFL;
-            if (crcParams.reflectIn)
-            {
-                curByte = reflect(curByte, 8);
-            }
+            CRCMetrics.processed(CRCMetrics.DataPath.BITWISE_SUPPLIER, crcParams, length, timing);
+        }
+        return nibbleFinal(crcParams, curValue);
+    }
 
-            for (int j = 0x80; j != 0; j >>= 1)
-            {
-                long bit = curValue & topBit;
-                curValue <<= 1;
-
-                if ((curByte & j) != 0)
-                {
-                    bit ^= topBit;
-                }
-
-                if (bit != 0)
-                {
-                    curValue ^= crcParams.polynomial;
-                }
-            }
+    /**
+     * Engine for static calculations. It is built on every call, since building is cheaper than looking it up.
+     */
+    private static NibbleEngine nibbleEngine(Parameters crcParams)
+    {
+        long mask = ((crcParams.width >= 64) ? 0 : (1L << crcParams.width)) - 1;
+        return new NibbleEngine(crcParams.width, crcParams.polynomial & mask, crcParams.reflectIn);
+    }
 
+    /** Initial intermediate value for static calculations, as {@link #init()} would return it */
+    private static long nibbleInit(Parameters crcParams)
+    {
+        long mask = ((crcParams.width >= 64) ? 0 : (1L << crcParams.width)) - 1;
+        return crcParams.reflectIn ? reflect(crcParams.init & mask, crcParams.width) : crcParams.init;
+    }
+
+    /** CRC from an intermediate value of a static calculation, as {@link #finalCRC(long)} would return it */
+    private static long nibbleFinal(Parameters crcParams, long curValue)
+    {
+        long mask = ((crcParams.width >= 64) ? 0 : (1L << crcParams.width)) - 1;
+        long ret = curValue & mask;
+        if (crcParams.reflectOut != crcParams.reflectIn)
+        {
+            ret = reflect(ret, crcParams.width);
         }
+        return (ret ^ crcParams.finalXor) & mask;
+    }
 
-        if (crcParams.reflectOut)
+    /**
+     * Adapts a generic data supplier to ByteSupplier, avoiding extra indirection when it already is one.
+     */
+    private static ByteSupplier asByteSupplier(IntFunction<Byte> dataSupplier)
+    {
+        if (dataSupplier instanceof ByteSupplier)
         {
-            curValue = reflect(curValue, crcParams.width);
+            return (ByteSupplier) dataSupplier;
         }
+        return dataSupplier::apply;
+    }
 
-        curValue = curValue ^ crcParams.finalXor;
+    /**
+     * Default size of a segment processed by a single task in parallel calculations, in bytes.
+     * Data not larger than this is processed sequentially.
+     * @see #calculateCRCParallel(byte[], int, int, ForkJoinPool, int)
+     */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 20;
 
-        return curValue & mask;
-    }
+    /** Size of a part of a file mapped into memory at once, in bytes */
+    private static final int MAPPED_WINDOW_SIZE = 1 << 26;
 
-    private Parameters crcParams;
-    private long   initValue;
-    private long[] crctable;
-    private long   mask;
+    private final Parameters crcParams;
+    private final long   initValue;
+    private final long[] crctable;
+    private final long   mask;
+    private final Engine engine;
+    private Engine interleaved;      // created on first use
+    private final CRCMetrics.DataPath enginePath; // what calls of engine are counted as
+    private final TableCache.Entry shared; // tables and helpers shared with other processors
 
     /**
      * Returns initial value for this CRC intermediate value
@@ -353,6 +424,8 @@ public class CRC
      * This method is used to feed data when performing iterative CRC calculation (using init, update
      * and finalCRC methods, possibly supplying data in chunks). It can be called multiple times per
      * CRC calculation to feed data to be processed in chunks.
+     * Unless the processor was created with a single table (see {@link #CRC(Parameters, int)}), data is consumed
+     * 8 or 16 bytes per step using "slicing" tables.
      * @param curValue CRC intermediate value so far
      * @param chunk data chunk to be processed by this call
      * @param offset is 0-based offset of the data to be processed in the array supplied
@@ -361,43 +434,32 @@ public class CRC
      * */
     public long update (long curValue, byte[] chunk, int offset, int length)
     {
-        if (crcParams.reflectIn)
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        curValue = engine.update(curValue, chunk, offset, length);
+        if (CRCMetrics.ENABLED)
         {
-            for (int i=0; i < length; i++)
-            {
-                byte v = chunk[offset+i];
-                curValue = crctable[(((byte)curValue) ^ v)&0x00FF]^(curValue >>> 8);
-            }
+            CRCMetrics.processed(enginePath, crcParams, length, timing);
         }
-        else if (crcParams.width<8)
-        {
-            for (int i=0; i < length; i++)
-            {
-                byte v = chunk[offset+i];
-                curValue = crctable[((((byte)(curValue << (8-crcParams.width))) ^ v)&0xFF)]^(curValue << 8);
-            }
-        }
-        else
-        {
-            for (int i=0; i < length; i++)
-            {
-                byte v = chunk[offset+i];
-                curValue = crctable[((((byte)(curValue >>> (crcParams.width - 8))) ^ v)&0xFF)]^(curValue << 8);
-            }
-        }
-
         return curValue;
     }
 
     /**
      * This method works exactly like {@link #update(long, byte[], int, int)} but uses a ByteBuffer.
-     * Underneath, it calls {@link #update(long, IntFunction, int, int)} and uses
-     * {@link ByteBuffer#get(int)} as the data supplier function.
+     * Buffers backed by an accessible array are processed exactly as arrays. Other buffers (direct and read-only ones)
+     * are read in bulk with {@link ByteBuffer#getLong(int)}, 8 bytes at a time, whatever the buffer's byte order is.
+     * Buffer's position, limit and byte order are not changed.
      * @see #update(long, byte[], int, int)
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
      */
     public long update (long curValue, ByteBuffer chunk, int offset, int length)
     {
-        return update(curValue, chunk::get, offset, length);
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        curValue = engine.update(curValue, chunk, offset, length);
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(enginePath, crcParams, length, timing);
+        }
+        return curValue;
     }
 
     /**
@@ -422,31 +484,56 @@ public class CRC
      */
     public long update (long curValue, IntFunction<Byte> dataSupplier, int offset, int length)
     {
+        return update(curValue, asByteSupplier(dataSupplier), offset, length);
+    }
+
+    /**
+     * This method works exactly like {@link #update(long, IntFunction, int, int)} but the data supplier
+     * returns primitive bytes, which spares a boxing conversion for every byte.
+     * @see #update(long, byte[], int, int)
+
+     * @param curValue CRC intermediate value so far
+     * @param  dataSupplier a function taking an index of a byte and returning the byte
+     * @param offset is 0-based offset of the data to be processed
+     * @param length indicates number of bytes to be processed.
+     * @return      updated intermediate value for this CRC
+     */
+    public long update (long curValue, ByteSupplier dataSupplier, int offset, int length)
+    {
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        long[] table = crctable;
+        int width = crcParams.width;
         if (crcParams.reflectIn)
         {
             for (int i=0; i < length; i++)
             {
-                byte v = dataSupplier.apply(offset + i);
-                curValue = crctable[(((byte)curValue) ^ v)&0x00FF]^(curValue >>> 8);
+                byte v = dataSupplier.getByte(offset + i);
+                curValue = table[(((byte)curValue) ^ v)&0x00FF]^(curValue >>> 8);
             }
         }
-        else if (crcParams.width<8)
+        else if (width<8)
         {
+            int shift = 8 - width;
             for (int i=0; i < length; i++)
             {
-                byte v = dataSupplier.apply(offset + i);
-                curValue = crctable[((((byte)(curValue << (8-crcParams.width))) ^ v)&0xFF)]^(curValue << 8);
+                byte v = dataSupplier.getByte(offset + i);
+                curValue = table[((((byte)(curValue << shift)) ^ v)&0xFF)]^(curValue << 8);
             }
         }
         else
         {
+            int shift = width - 8;
             for (int i=0; i < length; i++)
             {
-                byte v = dataSupplier.apply(offset + i);
-                curValue = crctable[((((byte)(curValue >>> (crcParams.width - 8))) ^ v)&0xFF)]^(curValue << 8);
+                byte v = dataSupplier.getByte(offset + i);
+                curValue = table[((((byte)(curValue >>> shift)) ^ v)&0xFF)]^(curValue << 8);
             }
         }
 
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.TABLE_SUPPLIER, crcParams, length, timing);
+        }
         return curValue;
     }
 
@@ -462,17 +549,49 @@ public class CRC
     }
 
     /**
-     * This calculates CRC over a part of ByteBuffer content. Underneath, it calls {@link #update(long, IntFunction, int, int)}
-     * and uses {@link ByteBuffer#get(int)} as the data supplier function.
+     * This calculates CRC over a part of ByteBuffer content. Underneath, it calls {@link #update(long, ByteBuffer, int, int)}.
      * The part of the ByteBuffer that is processed is from its current {@link ByteBuffer#position()} to {@link ByteBuffer#limit()}.
      *
-     * @see #update(long, IntFunction, int, int)
+     * @see #update(long, ByteBuffer, int, int)
      */
     public long update (long curValue, ByteBuffer chunk)
     {
         return update(curValue, chunk, chunk.position(), chunk.limit() - chunk.position());
     }
 
+    /**
+     * Feeds remaining bytes of several buffers, from position to limit of each, as if they were one piece of data.
+     * This is convenient for composite messages and scatter/gather I/O. Buffers' positions and limits are not changed.
+     * @see #update(long, ByteBuffer)
+     * @param curValue CRC intermediate value so far
+     * @param chunks buffers to be processed, in order
+     * @return updated intermediate value for this CRC
+     */
+    public long update (long curValue, ByteBuffer[] chunks)
+    {
+        return update(curValue, chunks, 0, chunks.length);
+    }
+
+    /**
+     * Works like {@link #update(long, ByteBuffer[])}, but processes only a part of the array of buffers,
+     * just like {@link java.nio.channels.GatheringByteChannel#write(ByteBuffer[], int, int)} does.
+     * @param curValue CRC intermediate value so far
+     * @param chunks buffers to be processed, in order
+     * @param offset index of the first buffer to be processed
+     * @param length number of buffers to be processed
+     * @return updated intermediate value for this CRC
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public long update (long curValue, ByteBuffer[] chunks, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, chunks.length);
+        for (int i = offset; i < offset + length; i++)
+        {
+            curValue = update(curValue, chunks[i]);
+        }
+        return curValue;
+    }
+
     /**
      * This method should be called to retrieve actual CRC for the data processed so far.
      * @param curValue CRC intermediate value so far
@@ -488,6 +607,93 @@ public class CRC
         return (ret ^ crcParams.finalXor) & mask;
     }
 
+    /**
+     * Calculates CRC of concatenation of two pieces of data given only their CRCs and length of the second one,
+     * much like zlib's <code>crc32_combine</code>. Processing the data is not required, so CRCs of blocks
+     * can be calculated separately (e.g. in parallel or at different times) and combined later.
+     * Works for any parameters, including non-zero initial value and final xor.
+     * <p>
+     * The cost is logarithmic in lengthB. Powers needed are cached, so combining many blocks of the same length
+     * is almost as cheap as a single polynomial multiplication.
+     * @param crcA CRC of the first piece of data (as returned by {@link #finalCRC(long)})
+     * @param crcB CRC of the second piece of data
+     * @param lengthB length of the second piece of data in bytes
+     * @return CRC of the first piece of data immediately followed by the second one
+     * @throws IllegalArgumentException if lengthB is negative
+     * */
+    public long combine(long crcA, long crcB, long lengthB)
+    {
+        if (lengthB < 0)
+            throw new IllegalArgumentException("Negative length: " + lengthB);
+
+        long registerA = toIntermediate(crcA);
+        long registerB = toIntermediate(crcB);
+        return finalCRC(shift(registerA ^ initValue, lengthB) ^ registerB);
+    }
+
+    /**
+     * Calculates CRC of data after a part of it has been overwritten in place, given only CRC of the original data,
+     * the bytes replaced and the bytes replacing them. Unchanged data is not needed: since CRC is affine over GF(2),
+     * the change of CRC depends only on the change of data and its distance to the end of data.
+     * The cost is proportional to the length of the replaced range plus logarithmic in the total length.
+     * Works for any parameters.
+     * @param crc CRC of the original data (as returned by {@link #finalCRC(long)})
+     * @param offset 0-based position of the replaced range within the data
+     * @param oldBytes bytes the range held originally
+     * @param newBytes bytes the range holds now; must be as many as the old ones
+     * @param totalLength length of the whole data in bytes
+     * @return CRC of the modified data
+     * @throws IllegalArgumentException if old and new bytes differ in number
+     * @throws IndexOutOfBoundsException if the range is not within the data
+     * */
+    public long replaceRange(long crc, long offset, byte[] oldBytes, byte[] newBytes, long totalLength)
+    {
+        return replaceRange(crc, offset, ByteBuffer.wrap(oldBytes), ByteBuffer.wrap(newBytes), totalLength);
+    }
+
+    /**
+     * This method works exactly like {@link #replaceRange(long, long, byte[], byte[], long)}, but old and new bytes
+     * are the remaining bytes of buffers, from position to limit. Buffers' positions and limits are not changed.
+     * @see #replaceRange(long, long, byte[], byte[], long)
+     * */
+    public long replaceRange(long crc, long offset, ByteBuffer oldBytes, ByteBuffer newBytes, long totalLength)
+    {
+        int length = oldBytes.remaining();
+        if (newBytes.remaining() != length)
+            throw new IllegalArgumentException("Old and new bytes differ in number: " + length + " != " + newBytes.remaining());
+        if (offset < 0 || totalLength < 0 || offset > totalLength - length)
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + offset + " + " + length + ") out of bounds for length " + totalLength);
+
+        // register of the xor of old and new bytes, started from zero, is the xor of their registers
+        long delta = update(0, oldBytes) ^ update(0, newBytes);
+        return finalCRC(toIntermediate(crc) ^ shift(delta, totalLength - offset - length));
+    }
+
+    /**
+     * Converts final CRC back into intermediate value, so that calling {@link #finalCRC(long)} on result
+     * gives the same CRC. Bits above CRC width are cleared.
+     */
+    long toIntermediate(long crc)
+    {
+        long ret = (crc ^ crcParams.finalXor) & mask;
+        if (crcParams.reflectOut != crcParams.reflectIn)
+        {
+            ret = reflect(ret, crcParams.width);
+        }
+        return ret;
+    }
+
+    /**
+     * Returns intermediate value after feeding specified number of zero bytes, in time logarithmic in their number.
+     * Bits above CRC width are cleared.
+     * @param curValue CRC intermediate value so far
+     * @param zeroBytes number of zero bytes to feed
+     */
+    long shift(long curValue, long zeroBytes)
+    {
+        return shared.polynomial().shift(curValue, zeroBytes);
+    }
+
     /**
      * A convenience method allowing to calculate CRC in one call.
      * @param data is data to calculate CRC on
@@ -526,34 +732,478 @@ public class CRC
         return finalCRC(crc);
     }
 
+    /**
+     * Works exactly like {@link #update(long, byte[], int, int)}, but splits data into several streams processed
+     * side by side in the same loop and stitches their CRCs together with the same math as {@link #combine(long, long, long)}.
+     * This keeps several table lookups in flight at once on a single core, which usually pays off for data
+     * from a few kilobytes to a few megabytes, where splitting work between threads costs more than it saves.
+     * Data shorter than {@value InterleavedEngine#STREAMS}*{@value InterleavedEngine#BLOCK} bytes is processed
+     * just like by {@link #update(long, byte[], int, int)}.
+     * <p>
+     * Tables for the streams are built on first use. If this processor delegates to a JDK implementation
+     * (see {@link #CRC(Parameters)}), data is processed by it as usual, since it is faster anyway.
+     * @param curValue CRC intermediate value so far
+     * @param chunk data chunk to be processed by this call
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @return updated intermediate value for this CRC
+     * */
+    public long updateInterleaved(long curValue, byte[] chunk, int offset, int length)
+    {
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        curValue = interleavedEngine().update(curValue, chunk, offset, length);
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.INTERLEAVED, crcParams, length, timing);
+        }
+        return curValue;
+    }
+
+    /**
+     * This method works exactly like {@link #updateInterleaved(long, byte[], int, int)} but uses a ByteBuffer.
+     * Buffer's position, limit and byte order are not changed.
+     * @see #updateInterleaved(long, byte[], int, int)
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public long updateInterleaved(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(length) : null;
+        curValue = interleavedEngine().update(curValue, chunk, offset, length);
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.INTERLEAVED, crcParams, length, timing);
+        }
+        return curValue;
+    }
+
+    /**
+     * Calculates CRC of a part of a byte array with {@link #updateInterleaved(long, byte[], int, int)}.
+     * Result is exactly the same as of {@link #calculateCRC(byte[], int, int)}.
+     * @param data is data to calculate CRC on
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @return calculated CRC
+     * */
+    public long calculateCRCInterleaved(byte[] data, int offset, int length)
+    {
+        return finalCRC(updateInterleaved(init(), data, offset, length));
+    }
+
+    /**
+     * This method works exactly like {@link #calculateCRCInterleaved(byte[], int, int)} but uses a ByteBuffer.
+     * @see #calculateCRCInterleaved(byte[], int, int)
+     */
+    public long calculateCRCInterleaved(ByteBuffer data, int offset, int length)
+    {
+        return finalCRC(updateInterleaved(init(), data, offset, length));
+    }
+
+    /**
+     * Calculates CRCs of many separate messages stored in one array in a single call. Messages are processed
+     * several at a time, with their table lookups interleaved in the same loop, and nothing is allocated per message.
+     * This is considerably faster than calling {@link #calculateCRC(byte[], int, int)} for each of many short messages.
+     * Tables are shared with {@link #updateInterleaved(long, byte[], int, int)} and built on first use.
+     * Processors delegating to a JDK implementation (see {@link #CRC(Parameters)}) pass messages to it one by one.
+     * @param data array holding the messages
+     * @param offsets 0-based offsets of the messages in the array
+     * @param lengths lengths of the messages, in the same order as offsets
+     * @param results receives calculated CRCs, in the same order as offsets
+     * @throws IllegalArgumentException if offsets and lengths arrays differ in length or results array is too short
+     * @throws IndexOutOfBoundsException if a message is not within the array
+     * */
+    public void calculateCRCs(byte[] data, int[] offsets, int[] lengths, long[] results)
+    {
+        long bytes = CRCMetrics.ENABLED ? totalLength(lengths) : 0;
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(bytes) : null;
+        int count = checkBatch(data, offsets, lengths, results.length);
+        Engine batchEngine = interleavedEngine();
+        long[] registers = new long[InterleavedEngine.STREAMS];
+        int i = 0;
+        for (; count - i >= registers.length; i += registers.length)
+        {
+            batchEngine.updateBatch(initValue, data, offsets, lengths, i, registers);
+            for (int k = 0; k < registers.length; k++)
+            {
+                results[i + k] = finalCRC(registers[k]);
+            }
+        }
+        for (; i < count; i++)
+        {
+            results[i] = finalCRC(batchEngine.update(initValue, data, offsets[i], lengths[i]));
+        }
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.BATCH, crcParams, bytes, timing);
+        }
+    }
+
+    /**
+     * This method works exactly like {@link #calculateCRCs(byte[], int[], int[], long[])} but stores CRCs as ints,
+     * which is convenient for CRCs up to 32 bits wide. Wider CRCs are truncated.
+     * @see #calculateCRCs(byte[], int[], int[], long[])
+     * */
+    public void calculateCRCs(byte[] data, int[] offsets, int[] lengths, int[] results)
+    {
+        long bytes = CRCMetrics.ENABLED ? totalLength(lengths) : 0;
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(bytes) : null;
+        int count = checkBatch(data, offsets, lengths, results.length);
+        Engine batchEngine = interleavedEngine();
+        long[] registers = new long[InterleavedEngine.STREAMS];
+        int i = 0;
+        for (; count - i >= registers.length; i += registers.length)
+        {
+            batchEngine.updateBatch(initValue, data, offsets, lengths, i, registers);
+            for (int k = 0; k < registers.length; k++)
+            {
+                results[i + k] = (int) finalCRC(registers[k]);
+            }
+        }
+        for (; i < count; i++)
+        {
+            results[i] = (int) finalCRC(batchEngine.update(initValue, data, offsets[i], lengths[i]));
+        }
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.BATCH, crcParams, bytes, timing);
+        }
+    }
+
+    /**
+     * Calculates CRCs of bytes from each buffer's current {@link ByteBuffer#position()} to {@link ByteBuffer#limit()}
+     * in a single call, like {@link #calculateCRCs(byte[], int[], int[], long[])} does for messages in an array.
+     * Buffers may be of different kinds (heap, direct or read-only); their positions and limits are not changed.
+     * @param buffers the messages
+     * @param results receives calculated CRCs, in the same order as buffers
+     * @throws IllegalArgumentException if results array is shorter than buffers array
+     * */
+    public void calculateCRCs(ByteBuffer[] buffers, long[] results)
+    {
+        if (results.length < buffers.length)
+            throw new IllegalArgumentException("Results array is too short: " + results.length + " < " + buffers.length);
+
+        long bytes = CRCMetrics.ENABLED ? totalLength(buffers) : 0;
+        Object timing = CRCMetrics.ENABLED ? CRCMetrics.begin(bytes) : null;
+        Engine batchEngine = interleavedEngine();
+        long[] registers = new long[InterleavedEngine.STREAMS];
+        int i = 0;
+        for (; buffers.length - i >= registers.length; i += registers.length)
+        {
+            batchEngine.updateBatch(initValue, buffers, i, registers);
+            for (int k = 0; k < registers.length; k++)
+            {
+                results[i + k] = finalCRC(registers[k]);
+            }
+        }
+        for (; i < buffers.length; i++)
+        {
+            results[i] = finalCRC(batchEngine.update(initValue, buffers[i], buffers[i].position(), buffers[i].remaining()));
+        }
+        if (CRCMetrics.ENABLED)
+        {
+            CRCMetrics.processed(CRCMetrics.DataPath.BATCH, crcParams, bytes, timing);
+        }
+    }
+
+    private static int checkBatch(byte[] data, int[] offsets, int[] lengths, int resultsLength)
+    {
+        if (offsets.length != lengths.length)
+            throw new IllegalArgumentException("Offsets and lengths differ in number: " + offsets.length + " != " + lengths.length);
+        if (resultsLength < offsets.length)
+            throw new IllegalArgumentException("Results array is too short: " + resultsLength + " < " + offsets.length);
+
+        for (int i = 0; i < offsets.length; i++)
+        {
+            Objects.checkFromIndexSize(offsets[i], lengths[i], data.length);
+        }
+        return offsets.length;
+    }
+
+    private static long totalLength(int[] lengths)
+    {
+        long bytes = 0;
+        for (int length : lengths)
+        {
+            bytes += length;
+        }
+        return bytes;
+    }
+
+    private static long totalLength(ByteBuffer[] buffers)
+    {
+        long bytes = 0;
+        for (ByteBuffer buffer : buffers)
+        {
+            bytes += buffer.remaining();
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns true if this processor delegates to a JDK implementation (see {@link #CRC(Parameters)}).
+     */
+    boolean isIntrinsic()
+    {
+        return engine instanceof IntrinsicEngine;
+    }
+
+    private Engine interleavedEngine()
+    {
+        Engine e = interleaved;
+        if (e == null)
+        {
+            // engines are immutable, so racing threads at worst look the shared one up twice
+            e = isIntrinsic() ? engine : shared.interleaved();
+            interleaved = e;
+        }
+        return e;
+    }
+
+    /**
+     * A convenience method calculating CRC of a whole byte array using all processors of the common fork-join pool.
+     * @see #calculateCRCParallel(byte[], int, int, ForkJoinPool, int)
+     * */
+    public long calculateCRCParallel(byte[] data)
+    {
+        return calculateCRCParallel(data, 0, data.length, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Calculates CRC of a part of a byte array in parallel. Data is split into segments no larger than threshold,
+     * CRCs of segments are calculated by tasks of the fork-join pool and merged with the same math as
+     * {@link #combine(long, long, long)}. Result is exactly the same as of {@link #calculateCRC(byte[], int, int)}.
+     * Data not larger than threshold is processed sequentially in the calling thread.
+     * @param data is data to calculate CRC on
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @param pool fork-join pool to run tasks in
+     * @param threshold maximal size of a segment processed by a single task, in bytes
+     * @return calculated CRC
+     * @throws IllegalArgumentException if threshold is not positive
+     * */
+    public long calculateCRCParallel(byte[] data, int offset, int length, ForkJoinPool pool, int threshold)
+    {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        return calculateCRCParallel(ByteBuffer.wrap(data), offset, length, pool, threshold);
+    }
+
+    /**
+     * A convenience method calculating CRC of bytes from buffer's current {@link ByteBuffer#position()}
+     * to {@link ByteBuffer#limit()} using all processors of the common fork-join pool.
+     * @see #calculateCRCParallel(ByteBuffer, int, int, ForkJoinPool, int)
+     * */
+    public long calculateCRCParallel(ByteBuffer data)
+    {
+        return calculateCRCParallel(data, data.position(), data.limit() - data.position(),
+                ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * This method works exactly like {@link #calculateCRCParallel(byte[], int, int, ForkJoinPool, int)} but uses
+     * a ByteBuffer, which might be direct. Buffer's position and limit are not changed.
+     * @see #calculateCRCParallel(byte[], int, int, ForkJoinPool, int)
+     * */
+    public long calculateCRCParallel(ByteBuffer data, int offset, int length, ForkJoinPool pool, int threshold)
+    {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+        Objects.checkFromIndexSize(offset, length, data.limit());
+
+        if (length <= threshold)
+        {
+            return calculateCRC(data, offset, length);
+        }
+        long register = pool.invoke(new ParallelTask(this, data, offset, length, threshold));
+        return finalCRC(shift(initValue, length) ^ register);
+    }
+
+    /**
+     * Calculates CRC of a whole file. The file is mapped into memory with {@link FileChannel#map} in windows
+     * and mapped buffers are processed directly, without copying data into java heap.
+     * Files of any size (including ones larger than 2GB) are supported.
+     * @param file file to calculate CRC of
+     * @return calculated CRC
+     * @throws IOException if the file can not be opened or mapped
+     * */
+    public long calculateCRC(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return calculateCRC(channel, 0, channel.size());
+        }
+    }
+
+    /**
+     * Calculates CRC of a part of a file. Channel's position is not changed.
+     * @see #calculateCRC(Path)
+     * @param channel channel of the file, must be open for reading
+     * @param position position within the file of the first byte to be processed
+     * @param size number of bytes to process
+     * @return calculated CRC
+     * @throws IOException if the file can not be mapped
+     * */
+    public long calculateCRC(FileChannel channel, long position, long size) throws IOException
+    {
+        return finalCRC(update(init(), channel, position, size));
+    }
+
+    /**
+     * Feeds a part of a file when performing iterative CRC calculation. The file is mapped into memory with
+     * {@link FileChannel#map} in windows and mapped buffers are processed directly. Channel's position is not changed.
+     * @param curValue CRC intermediate value so far
+     * @param channel channel of the file, must be open for reading
+     * @param position position within the file of the first byte to be processed
+     * @param size number of bytes to process
+     * @return updated intermediate value for this CRC
+     * @throws IOException if the file can not be mapped
+     * */
+    public long update(long curValue, FileChannel channel, long position, long size) throws IOException
+    {
+        return update(curValue, channel, position, size, MAPPED_WINDOW_SIZE);
+    }
+
+    long update(long curValue, FileChannel channel, long position, long size, int windowSize) throws IOException
+    {
+        for (long done = 0; done < size; )
+        {
+            int length = (int) Math.min(windowSize, size - done);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + done, length);
+            curValue = update(curValue, window, 0, length);
+            done += length;
+        }
+        return curValue;
+    }
+
+    /**
+     * Calculates CRC of a whole file like {@link #calculateCRC(Path)}, but processes each mapped window
+     * in parallel using the common fork-join pool.
+     * @see #calculateCRCParallel(FileChannel, long, long, ForkJoinPool, int)
+     * */
+    public long calculateCRCParallel(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            return calculateCRCParallel(channel, 0, channel.size(), ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);
+        }
+    }
+
+    /**
+     * Calculates CRC of a part of a file like {@link #calculateCRC(FileChannel, long, long)}, but each mapped window
+     * is split into segments processed in parallel as in {@link #calculateCRCParallel(ByteBuffer, int, int, ForkJoinPool, int)}.
+     * Result is exactly the same as of sequential calculation.
+     * @param channel channel of the file, must be open for reading
+     * @param position position within the file of the first byte to be processed
+     * @param size number of bytes to process
+     * @param pool fork-join pool to run tasks in
+     * @param threshold maximal size of a segment processed by a single task, in bytes
+     * @return calculated CRC
+     * @throws IOException if the file can not be mapped
+     * @throws IllegalArgumentException if threshold is not positive
+     * */
+    public long calculateCRCParallel(FileChannel channel, long position, long size, ForkJoinPool pool, int threshold) throws IOException
+    {
+        return calculateCRCParallel(channel, position, size, pool, threshold, MAPPED_WINDOW_SIZE);
+    }
+
+    long calculateCRCParallel(FileChannel channel, long position, long size, ForkJoinPool pool, int threshold, int windowSize) throws IOException
+    {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("Threshold must be positive: " + threshold);
+
+        long register = 0;
+        for (long done = 0; done < size; )
+        {
+            int length = (int) Math.min(windowSize, size - done);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position + done, length);
+            long windowRegister = (length <= threshold) ? update(0, window, 0, length)
+                    : pool.invoke(new ParallelTask(this, window, 0, length, threshold));
+            register = shift(register, length) ^ windowRegister;
+            done += length;
+        }
+        return finalCRC(shift(initValue, size) ^ register);
+    }
+
     /**
      * Constructs a new CRC processor for table based CRC calculations.
-     * Underneath, it just calls finalCRC() method.
+     * It uses 8 lookup tables ("slicing-by-8") for processing byte arrays.
+     * <p>
+     * If parameters are those of {@link Parameters#CRC32} or {@link Parameters#CRC32C} (either these very instances
+     * or any other with the same values), larger chunks of data are processed by {@link java.util.zip.CRC32} or
+     * {@link java.util.zip.CRC32C}, which use hardware instructions on most platforms. Intermediate values are
+     * exactly the same in either case. Buffers without accessible array are handed to them in place: position and limit
+     * are moved to the range being read and restored before returning, so such a buffer must not be used through
+     * its position by another thread meanwhile.
      * @param  crcParams CRC algorithm parameters
-     * @throws RuntimeException if CRC sum width is not divisible by 8
+     * @see #CRC(Parameters, int)
      */
     public CRC(Parameters crcParams)
     {
-        this.crcParams = new Parameters(crcParams);
+        this(crcParams, 8, true, false);
+    }
 
-        initValue = (crcParams.reflectIn) ? reflect(crcParams.init, crcParams.width) : crcParams.init;
-        this.mask = ((crcParams.width>=64) ? 0 : (1L << crcParams.width)) - 1;
-        this.crctable = new long[256];
+    /**
+     * Constructs a new CRC processor for table based CRC calculations using specified number of lookup tables.
+     * With 8 or 16 tables ("slicing-by-8" and "slicing-by-16") byte arrays are consumed 8 or 16 bytes per step,
+     * which is considerably faster on large data, at the cost of 16KB or 32KB of tables.
+     * A single table processes one byte per step and is the most compact option.
+     * Unlike {@link #CRC(Parameters)}, this constructor never delegates to JDK implementations.
+     * @param  crcParams CRC algorithm parameters
+     * @param  tables number of lookup tables to use; must be 1, 8 or 16
+     * @throws IllegalArgumentException if number of tables is not supported
+     */
+    public CRC(Parameters crcParams, int tables)
+    {
+        this(crcParams, tables, false, false);
+    }
 
-        byte[] tmp = new byte[1];
+    /**
+     * Creates a CRC processor with an engine class of its own, defined at runtime for the algorithm.
+     * Width, bit order and tables are constants of that class, so the compiled loop has no branches or loads
+     * for them and its profile is not shared with other algorithms. The loop consumes 16 bytes per step,
+     * like {@link #CRC(Parameters, int)} with 16 tables, and is considerably faster once compiled.
+     * Processors for the same algorithm share the class. Since classes are never unloaded, their number is
+     * limited; when the limit is reached, processors use shared "slicing-by-16" tables instead.
+     * Algorithms computed by {@link java.util.zip.CRC32} and {@link java.util.zip.CRC32C} are delegated to them,
+     * like in {@link #CRC(Parameters)}.
+     * @param  crcParams CRC algorithm parameters
+     * @return new CRC processor
+     */
+    public static CRC specialized(Parameters crcParams)
+    {
+        return new CRC(crcParams, 16, true, true);
+    }
 
-        Parameters tableParams = new Parameters(crcParams);
+    private CRC(Parameters crcParams, int tables, boolean intrinsics, boolean specialize)
+    {
+        this.crcParams = crcParams;
 
-        tableParams.init = 0;
-        tableParams.reflectOut = tableParams.reflectIn;
-        tableParams.finalXor = 0;
-        for (int i=0; i< 256; i++)
+        initValue = (crcParams.reflectIn) ? reflect(crcParams.init, crcParams.width) : crcParams.init;
+        this.mask = ((crcParams.width>=64) ? 0 : (1L << crcParams.width)) - 1;
+
+        // tables depend only on width, polynomial and input reflection and are shared by all processors
+        this.shared = TableCache.get(crcParams);
+        this.crctable = shared.crctable;
+        Engine intrinsic = intrinsics ? shared.intrinsic(crcParams) : null;
+        if (intrinsic != null)
+        {
+            this.engine = intrinsic;
+            this.enginePath = CRCMetrics.DataPath.INTRINSIC;
+        }
+        else
         {
-            tmp[0] = (byte)i;
-            crctable[i] = CRC.calculateCRC(tableParams, tmp);
+            this.engine = specialize ? shared.specialized() : shared.slicing(tables);
+            this.enginePath = CRCMetrics.DataPath.TABLE;
         }
     }
 
+    /**
+     * Returns parameters of the CRC algorithm this processor calculates.
+     * @return CRC algorithm parameters
+     */
+    public Parameters getParameters()
+    {
+        return crcParams;
+    }
+
     /**
      * Is a convenience method to spare end users from explicit type conversion every time this package is used.
      * Underneath, it just calls finalCRC() method.
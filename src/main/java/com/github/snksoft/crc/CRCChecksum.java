@@ -0,0 +1,142 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCChecksum adapts a {@link CRC} processor to {@link Checksum} interface, so that any CRC algorithm can be used
+ with {@link java.util.zip.CheckedInputStream}, {@link java.util.zip.CheckedOutputStream} and other APIs taking
+ a Checksum. Unlike {@link CRC}, which leaves the intermediate value to the caller, a CRCChecksum keeps it,
+ and so an instance must not be used by several threads at once.
+
+<p>
+Bulk updates go straight to the table driven engine of the processor, so they are exactly as fast as
+{@link CRC#update(long, byte[], int, int)}.
+<pre>
+{@code
+    CRCChecksum checksum = new CRCChecksum(Algorithm.CRC_16_MODBUS.crc());
+    checksum.update("123456789".getBytes());
+    System.out.printf("CRC is 0x%04X\n", checksum.getValue()); // prints "CRC is 0x4B37"
+}
+</pre>
+
+<p>
+State of a calculation can be copied with {@link #copy()}, which is handy for calculating CRCs of several
+messages sharing a common prefix: feed the prefix once, then continue each message on its own copy.
+ * */
+public final class CRCChecksum implements Checksum
+{
+    private final CRC crc;
+    private final byte[] single = new byte[1]; // spares an allocation in update(int)
+    private long curValue;
+
+    /**
+     * Creates a checksum calculating CRC with specified processor.
+     * @param crc CRC processor; it keeps no calculation state and can be shared with other checksums
+     */
+    public CRCChecksum(CRC crc)
+    {
+        this(crc, crc.init());
+    }
+
+    /**
+     * Creates a checksum calculating CRC with a new table driven processor for specified parameters.
+     * @param crcParams CRC algorithm parameters
+     */
+    public CRCChecksum(CRC.Parameters crcParams)
+    {
+        this(new CRC(crcParams));
+    }
+
+    private CRCChecksum(CRC crc, long curValue)
+    {
+        this.crc = crc;
+        this.curValue = curValue;
+    }
+
+    /**
+     * Updates the checksum with a single byte. Prefer bulk updates when possible.
+     * @param b the byte to update the checksum with, only its lowest 8 bits are used
+     */
+    @Override
+    public void update(int b)
+    {
+        single[0] = (byte) b;
+        curValue = crc.update(curValue, single, 0, 1);
+    }
+
+    /**
+     * Updates the checksum with a part of a byte array.
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    @Override
+    public void update(byte[] b, int off, int len)
+    {
+        Objects.checkFromIndexSize(off, len, b.length);
+        curValue = crc.update(curValue, b, off, len);
+    }
+
+    /**
+     * Updates the checksum with bytes from buffer's current position to its limit. Upon return,
+     * the buffer's position equals its limit. Direct buffers are read in bulk without copying.
+     */
+    @Override
+    public void update(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        curValue = crc.update(curValue, buffer, position, limit - position);
+        buffer.position(limit);
+    }
+
+    /**
+     * Updates the checksum with a part of a buffer given by absolute indices, without changing buffer's position.
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    void update(ByteBuffer buffer, int offset, int length)
+    {
+        curValue = crc.update(curValue, buffer, offset, length);
+    }
+
+    /**
+     * Returns CRC of all the data fed so far. Does not change the state, so more data can be fed afterwards.
+     */
+    @Override
+    public long getValue()
+    {
+        return crc.finalCRC(curValue);
+    }
+
+    /**
+     * Resets the checksum to its initial value, as if no data has been fed.
+     */
+    @Override
+    public void reset()
+    {
+        curValue = crc.init();
+    }
+
+    /**
+     * Returns a new checksum sharing the processor and having the same state as this one.
+     * Further updates of either checksum do not affect the other one.
+     * @return copy of this checksum
+     */
+    public CRCChecksum copy()
+    {
+        return new CRCChecksum(crc, curValue);
+    }
+
+    /**
+     * Returns the processor this checksum uses.
+     * @return the processor
+     */
+    public CRC getCRC()
+    {
+        return crc;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.snksoft.crc;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCInputStream calculates CRC of data read through it, in passing. Bulk reads are fed to the table driven engine
+ as a whole, so the cost is the same as of {@link CRC#update(long, byte[], int, int)} over the data read.
+ Skipped bytes are read and included in CRC, so that it always covers everything consumed from the stream.
+ Marking is not supported.
+<pre>
+{@code
+    try (CRCInputStream in = new CRCInputStream(Files.newInputStream(file), Algorithm.CRC_32_ISCSI.crc())) {
+        process(in);
+        long crc = in.getChecksum().getValue();
+    }
+}
+</pre>
+ * */
+public class CRCInputStream extends FilterInputStream
+{
+    private final CRCChecksum checksum;
+
+    /**
+     * Creates a stream feeding everything read into specified checksum.
+     * @param in underlying stream
+     * @param checksum checksum to update; it is not reset
+     */
+    public CRCInputStream(InputStream in, CRCChecksum checksum)
+    {
+        super(in);
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates a stream calculating CRC of everything read with specified processor.
+     * @param in underlying stream
+     * @param crc CRC processor
+     */
+    public CRCInputStream(InputStream in, CRC crc)
+    {
+        this(in, new CRCChecksum(crc));
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        int b = in.read();
+        if (b >= 0)
+        {
+            checksum.update(b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        int n = in.read(b, off, len);
+        if (n > 0)
+        {
+            checksum.update(b, off, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        if (n <= 0)
+        {
+            return 0;
+        }
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n)
+        {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count < 0)
+            {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit)
+    {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException
+    {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Returns the checksum holding CRC of data read so far.
+     * @return the checksum
+     */
+    public CRCChecksum getChecksum()
+    {
+        return checksum;
+    }
+}
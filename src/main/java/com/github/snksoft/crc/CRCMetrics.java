@@ -0,0 +1,256 @@
+package com.github.snksoft.crc;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCMetrics counts calls and bytes processed by each data path of {@link CRC}, in total and per {@link CRC.Parameters},
+ which shows callers stuck on slow paths (e.g. static calculations without prebuilt tables or per-byte data suppliers) in production.
+
+<p>
+Metrics are off unless the JVM is started with <code>-Dcom.github.snksoft.crc.metrics=true</code>. The flag is read
+once into a static final field, so when metrics are off the JIT compiler removes all the instrumentation
+and it costs nothing. When they are on, every call adds to {@link LongAdder} counters, is passed to the
+{@link Listener} if one is set and, if Java Flight Recorder is available, calculations of at least
+<code>com.github.snksoft.crc.metrics.jfrThreshold</code> bytes (1MB by default) and building of lookup tables
+are recorded as JFR events. Calculation events span the calculation, so the <code>threshold</code> setting
+of a recording selects the slow ones.
+ * */
+public final class CRCMetrics
+{
+    /** Whether metrics are collected; read from system property <code>com.github.snksoft.crc.metrics</code> */
+    static final boolean ENABLED = Boolean.getBoolean("com.github.snksoft.crc.metrics");
+
+    private static final boolean JFR = ENABLED && jfrAvailable();
+    private static final long JFR_THRESHOLD = Long.getLong("com.github.snksoft.crc.metrics.jfrThreshold", 1 << 20);
+
+    /**
+     * Data paths of {@link CRC}.
+     */
+    public enum DataPath
+    {
+        /** Static calculation without prebuilt tables over byte arrays, see {@link CRC#calculateCRC(CRC.Parameters, byte[], int, int)} */
+        BITWISE,
+        /** Static calculation without prebuilt tables with a function call per byte, including direct buffers */
+        BITWISE_SUPPLIER,
+        /** Table driven calculation over byte arrays and ByteBuffers */
+        TABLE,
+        /** Table driven calculation with a function call per byte, see {@link CRC#update(long, CRC.ByteSupplier, int, int)} */
+        TABLE_SUPPLIER,
+        /** Calculation delegated to {@link java.util.zip.CRC32} or {@link java.util.zip.CRC32C} */
+        INTRINSIC,
+        /** Several streams of data processed side by side, see {@link CRC#updateInterleaved(long, byte[], int, int)} */
+        INTERLEAVED,
+        /** Many messages processed in one call, see {@link CRC#calculateCRCs(byte[], int[], int[], long[])} */
+        BATCH
+    }
+
+    /**
+     * Receives every recorded event when metrics are enabled. Methods are called synchronously from calculating
+     * threads, so implementations must be fast and thread safe.
+     */
+    public interface Listener
+    {
+        /**
+         * Called after data has been processed by a data path.
+         * @param path the data path
+         * @param crcParams parameters of the CRC algorithm
+         * @param bytes number of bytes processed
+         */
+        void processed(DataPath path, CRC.Parameters crcParams, long bytes);
+
+        /**
+         * Called after lookup tables have been built.
+         * @param kind what has been built, e.g. "table" or "slicing-8"
+         * @param width width of the CRC expressed in bits
+         * @param polynomial CRC polynomial
+         * @param reflectIn whether input is reflected
+         * @param nanos time spent building, in nanoseconds
+         */
+        default void tableBuilt(String kind, int width, long polynomial, boolean reflectIn, long nanos)
+        {
+        }
+    }
+
+    private static final class Counters
+    {
+        final LongAdder[] calls = new LongAdder[DataPath.values().length];
+        final LongAdder[] bytes = new LongAdder[DataPath.values().length];
+
+        Counters()
+        {
+            for (int i = 0; i < calls.length; i++)
+            {
+                calls[i] = new LongAdder();
+                bytes[i] = new LongAdder();
+            }
+        }
+    }
+
+    private static final Counters total = new Counters();
+    private static final ConcurrentHashMap<CRC.Parameters, Counters> perParameters = new ConcurrentHashMap<>();
+    private static final LongAdder tablesBuilt = new LongAdder();
+    private static volatile Listener listener;
+
+    private CRCMetrics()
+    {
+    }
+
+    /**
+     * Returns whether metrics are collected.
+     * @return true if the JVM has been started with <code>-Dcom.github.snksoft.crc.metrics=true</code>
+     */
+    public static boolean isEnabled()
+    {
+        return ENABLED;
+    }
+
+    /**
+     * Sets the listener receiving every recorded event, replacing the previous one.
+     * @param newListener the listener, or null to remove it
+     */
+    public static void setListener(Listener newListener)
+    {
+        listener = newListener;
+    }
+
+    /**
+     * Returns number of calls handled by a data path so far.
+     * @param path the data path
+     * @return number of calls
+     */
+    public static long getCalls(DataPath path)
+    {
+        return total.calls[path.ordinal()].sum();
+    }
+
+    /**
+     * Returns number of bytes processed by a data path so far.
+     * @param path the data path
+     * @return number of bytes
+     */
+    public static long getBytes(DataPath path)
+    {
+        return total.bytes[path.ordinal()].sum();
+    }
+
+    /**
+     * Returns number of calls handled by a data path for particular parameters so far.
+     * @param path the data path
+     * @param crcParams CRC algorithm parameters
+     * @return number of calls
+     */
+    public static long getCalls(DataPath path, CRC.Parameters crcParams)
+    {
+        Counters counters = perParameters.get(crcParams);
+        return (counters == null) ? 0 : counters.calls[path.ordinal()].sum();
+    }
+
+    /**
+     * Returns number of bytes processed by a data path for particular parameters so far.
+     * @param path the data path
+     * @param crcParams CRC algorithm parameters
+     * @return number of bytes
+     */
+    public static long getBytes(DataPath path, CRC.Parameters crcParams)
+    {
+        Counters counters = perParameters.get(crcParams);
+        return (counters == null) ? 0 : counters.bytes[path.ordinal()].sum();
+    }
+
+    /**
+     * Returns number of times lookup tables have been built so far.
+     * @return number of tables built
+     */
+    public static long getTablesBuilt()
+    {
+        return tablesBuilt.sum();
+    }
+
+    /**
+     * Sets all counters to zero.
+     */
+    public static void reset()
+    {
+        perParameters.clear();
+        for (int i = 0; i < total.calls.length; i++)
+        {
+            total.calls[i].reset();
+            total.bytes[i].reset();
+        }
+        tablesBuilt.reset();
+    }
+
+    /**
+     * Starts timing a call of a data path. Callers check {@link #ENABLED} first.
+     * Calls below the JFR threshold return before touching JFR, so they never create an event.
+     * @param bytes number of bytes the call is going to process
+     * @return JFR event timing the call, to be passed to {@link #processed(DataPath, CRC.Parameters, long, Object)},
+     *         or null if the call is not recorded
+     */
+    static Object begin(long bytes)
+    {
+        return (JFR && bytes >= JFR_THRESHOLD) ? JfrEvents.beginCalculation() : null;
+    }
+
+    /**
+     * Records a call of a data path. Callers check {@link #ENABLED} first.
+     * @param timing value returned by {@link #begin(long)} when the calculation started
+     */
+    static void processed(DataPath path, CRC.Parameters crcParams, long bytes, Object timing)
+    {
+        int i = path.ordinal();
+        total.calls[i].increment();
+        total.bytes[i].add(bytes);
+        Counters counters = perParameters.computeIfAbsent(crcParams, p -> new Counters());
+        counters.calls[i].increment();
+        counters.bytes[i].add(bytes);
+
+        Listener l = listener;
+        if (l != null)
+        {
+            l.processed(path, crcParams, bytes);
+        }
+        if (timing != null)
+        {
+            JfrEvents.endCalculation(timing, path.name(), crcParams.toString(), bytes);
+        }
+    }
+
+    /**
+     * Records building of lookup tables. Callers check {@link #ENABLED} first.
+     */
+    static void tableBuilt(String kind, int width, long polynomial, boolean reflectIn, long nanos)
+    {
+        tablesBuilt.increment();
+        Listener l = listener;
+        if (l != null)
+        {
+            l.tableBuilt(kind, width, polynomial, reflectIn, nanos);
+        }
+        if (JFR)
+        {
+            JfrEvents.tableBuild(kind, width, polynomial, reflectIn, nanos);
+        }
+    }
+
+    /**
+     * JFR module is optional, so its classes are only touched after checking it can be loaded.
+     */
+    private static boolean jfrAvailable()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.Event", false, CRCMetrics.class.getClassLoader());
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+}
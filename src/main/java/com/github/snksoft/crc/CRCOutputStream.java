@@ -0,0 +1,62 @@
+package com.github.snksoft.crc;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCOutputStream calculates CRC of data written through it, in passing. Unlike plain {@link FilterOutputStream},
+ arrays are passed to the underlying stream and to the table driven engine as a whole rather than byte by byte.
+ * */
+public class CRCOutputStream extends FilterOutputStream
+{
+    private final CRCChecksum checksum;
+
+    /**
+     * Creates a stream feeding everything written into specified checksum.
+     * @param out underlying stream
+     * @param checksum checksum to update; it is not reset
+     */
+    public CRCOutputStream(OutputStream out, CRCChecksum checksum)
+    {
+        super(out);
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates a stream calculating CRC of everything written with specified processor.
+     * @param out underlying stream
+     * @param crc CRC processor
+     */
+    public CRCOutputStream(OutputStream out, CRC crc)
+    {
+        this(out, new CRCChecksum(crc));
+    }
+
+    @Override
+    public void write(int b) throws IOException
+    {
+        out.write(b);
+        checksum.update(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        out.write(b, off, len);
+        checksum.update(b, off, len);
+    }
+
+    /**
+     * Returns the checksum holding CRC of data written so far.
+     * @return the checksum
+     */
+    public CRCChecksum getChecksum()
+    {
+        return checksum;
+    }
+}
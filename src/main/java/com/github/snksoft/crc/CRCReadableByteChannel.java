@@ -0,0 +1,131 @@
+package com.github.snksoft.crc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ScatteringByteChannel;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCReadableByteChannel calculates CRC of data read through it, in passing. Exactly the bytes transferred
+ into destination buffers are fed to the table driven engine, straight from the buffers, so neither a copy nor
+ a second pass over the data is needed. Direct buffers are processed without copying them into java heap.
+<p>
+Scattering reads are passed to the underlying channel as such if it is a {@link ScatteringByteChannel};
+otherwise buffers are filled one by one.
+ * */
+public class CRCReadableByteChannel implements ScatteringByteChannel
+{
+    private final ReadableByteChannel channel;
+    private final CRCChecksum checksum;
+    private int[] positions = new int[0]; // reused by scattering reads
+
+    /**
+     * Creates a channel feeding everything read into specified checksum.
+     * @param channel underlying channel
+     * @param checksum checksum to update; it is not reset
+     */
+    public CRCReadableByteChannel(ReadableByteChannel channel, CRCChecksum checksum)
+    {
+        this.channel = channel;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates a channel calculating CRC of everything read with specified processor.
+     * @param channel underlying channel
+     * @param crc CRC processor
+     */
+    public CRCReadableByteChannel(ReadableByteChannel channel, CRC crc)
+    {
+        this(channel, new CRCChecksum(crc));
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException
+    {
+        int position = dst.position();
+        int n = channel.read(dst);
+        if (n > 0)
+        {
+            checksum.update(dst, position, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts, int offset, int length) throws IOException
+    {
+        Objects.checkFromIndexSize(offset, length, dsts.length);
+        if (!(channel instanceof ScatteringByteChannel))
+        {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++)
+            {
+                int remaining = dsts[i].remaining();
+                int n = read(dsts[i]);
+                if (n < 0)
+                {
+                    return (total == 0) ? -1 : total;
+                }
+                total += n;
+                if (n < remaining)
+                {
+                    break;
+                }
+            }
+            return total;
+        }
+
+        if (positions.length < length)
+        {
+            positions = new int[length];
+        }
+        for (int i = 0; i < length; i++)
+        {
+            positions[i] = dsts[offset + i].position();
+        }
+        long n = ((ScatteringByteChannel) channel).read(dsts, offset, length);
+        for (int i = 0; i < length && n > 0; i++)
+        {
+            ByteBuffer dst = dsts[offset + i];
+            int count = dst.position() - positions[i];
+            if (count > 0)
+            {
+                checksum.update(dst, positions[i], count);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long read(ByteBuffer[] dsts) throws IOException
+    {
+        return read(dsts, 0, dsts.length);
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Returns the checksum holding CRC of data read so far.
+     * @return the checksum
+     */
+    public CRCChecksum getChecksum()
+    {
+        return checksum;
+    }
+}
@@ -0,0 +1,188 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCStreams calculates CRCs of data flowing through {@link Stream} pipelines, including parallel ones.
+ Collectors returned by {@link #toCRC(CRC)} and {@link #toCRCOfBuffers(CRC)} calculate CRC of all chunks of a stream
+ as if they were concatenated in encounter order. In a parallel stream every thread calculates CRC of the chunks
+ it gets, starting from a zero register and keeping their total length, and partial results are merged in order
+ with the same math as {@link CRC#combine(long, long, long)}. The result is exactly the same as of
+ {@link CRC#calculateCRC(byte[])} on concatenated data, so streams need not be made sequential.
+
+<p>
+{@link #segments(ByteBuffer, int)} splits a large buffer into segments for such streams, in halves, as the stream asks.
+<pre>
+{@code
+    long crc = CRCStreams.stream(mapped, 1 << 20, true).collect(CRCStreams.toCRCOfBuffers(new CRC(CRC.Parameters.CRC32C)));
+    long crc2 = blocks.parallelStream().collect(CRCStreams.toCRC(new CRC(CRC.Parameters.CRC64ECMA)));
+}
+</pre>
+ * */
+public final class CRCStreams
+{
+    private CRCStreams()
+    {
+    }
+
+    /**
+     * Register and length of a run of consecutive chunks. Registers start from zero, so that runs can be
+     * merged regardless of what comes before them; initial value is accounted for when finishing.
+     */
+    private static final class Partial
+    {
+        private final CRC crc;
+        private long register;
+        private long length;
+
+        Partial(CRC crc)
+        {
+            this.crc = crc;
+        }
+
+        void add(byte[] chunk)
+        {
+            register = crc.update(register, chunk, 0, chunk.length);
+            length += chunk.length;
+        }
+
+        void add(ByteBuffer chunk)
+        {
+            register = crc.update(register, chunk);
+            length += chunk.remaining();
+        }
+
+        /** Appends a run following this one */
+        Partial merge(Partial next)
+        {
+            register = crc.shift(register, next.length) ^ next.register;
+            length += next.length;
+            return this;
+        }
+
+        long finish()
+        {
+            return crc.finalCRC(crc.shift(crc.init(), length) ^ register);
+        }
+    }
+
+    /**
+     * Returns a collector calculating CRC of byte arrays, concatenated in encounter order.
+     * @param crc CRC processor
+     * @return collector producing calculated CRC
+     */
+    public static Collector<byte[], ?, Long> toCRC(CRC crc)
+    {
+        Objects.requireNonNull(crc);
+        return Collector.of(() -> new Partial(crc), Partial::add, Partial::merge, Partial::finish);
+    }
+
+    /**
+     * Returns a collector calculating CRC of remaining bytes of buffers, from position to limit of each,
+     * concatenated in encounter order. Buffers' positions and limits are not changed.
+     * @param crc CRC processor
+     * @return collector producing calculated CRC
+     */
+    public static Collector<ByteBuffer, ?, Long> toCRCOfBuffers(CRC crc)
+    {
+        Objects.requireNonNull(crc);
+        return Collector.of(() -> new Partial(crc), Partial::add, Partial::merge, Partial::finish);
+    }
+
+    /**
+     * Returns a spliterator over segments of bytes from buffer's current {@link ByteBuffer#position()} to
+     * {@link ByteBuffer#limit()}. Segments are views sharing buffer's content, all of the given size but the last one.
+     * The spliterator splits in halves at segment boundaries, so segments are the same however the data is split.
+     * Buffer's position and limit are not changed.
+     * @param data data to split
+     * @param segmentSize size of a segment in bytes
+     * @return spliterator over segments, in order
+     * @throws IllegalArgumentException if segment size is not positive
+     */
+    public static Spliterator<ByteBuffer> segments(ByteBuffer data, int segmentSize)
+    {
+        if (segmentSize <= 0)
+            throw new IllegalArgumentException("Segment size must be positive: " + segmentSize);
+        return new SegmentSpliterator(data, data.position(), data.limit(), segmentSize);
+    }
+
+    /**
+     * Returns a stream of segments of a buffer, as described in {@link #segments(ByteBuffer, int)}.
+     * @param data data to split
+     * @param segmentSize size of a segment in bytes
+     * @param parallel whether the stream is parallel
+     * @return stream of segments, in order
+     * @throws IllegalArgumentException if segment size is not positive
+     */
+    public static Stream<ByteBuffer> stream(ByteBuffer data, int segmentSize, boolean parallel)
+    {
+        return StreamSupport.stream(segments(data, segmentSize), parallel);
+    }
+
+    private static final class SegmentSpliterator implements Spliterator<ByteBuffer>
+    {
+        private final ByteBuffer data;
+        private final int segmentSize;
+        private final int end;
+        private int pos;
+
+        SegmentSpliterator(ByteBuffer data, int pos, int end, int segmentSize)
+        {
+            this.data = data;
+            this.pos = pos;
+            this.end = end;
+            this.segmentSize = segmentSize;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super ByteBuffer> action)
+        {
+            if (pos >= end)
+            {
+                return false;
+            }
+            int next = pos + Math.min(segmentSize, end - pos);
+            ByteBuffer segment = data.duplicate();
+            segment.limit(next).position(pos);
+            pos = next;
+            action.accept(segment);
+            return true;
+        }
+
+        @Override
+        public Spliterator<ByteBuffer> trySplit()
+        {
+            long segments = estimateSize();
+            if (segments < 2)
+            {
+                return null;
+            }
+            int middle = pos + (int) (segments / 2) * segmentSize;
+            SegmentSpliterator prefix = new SegmentSpliterator(data, pos, middle, segmentSize);
+            pos = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize()
+        {
+            return ((long) end - pos + segmentSize - 1) / segmentSize;
+        }
+
+        @Override
+        public int characteristics()
+        {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.snksoft.crc;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ CRCWritableByteChannel calculates CRC of data written through it, in passing. Exactly the bytes the underlying
+ channel has accepted are fed to the table driven engine, straight from the source buffers, so a partial write
+ followed by a retry of the rest never counts any byte twice.
+<p>
+Gathering writes are passed to the underlying channel as such if it is a {@link GatheringByteChannel};
+otherwise buffers are written one by one.
+ * */
+public class CRCWritableByteChannel implements GatheringByteChannel
+{
+    private final WritableByteChannel channel;
+    private final CRCChecksum checksum;
+    private int[] positions = new int[0]; // reused by gathering writes
+
+    /**
+     * Creates a channel feeding everything written into specified checksum.
+     * @param channel underlying channel
+     * @param checksum checksum to update; it is not reset
+     */
+    public CRCWritableByteChannel(WritableByteChannel channel, CRCChecksum checksum)
+    {
+        this.channel = channel;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Creates a channel calculating CRC of everything written with specified processor.
+     * @param channel underlying channel
+     * @param crc CRC processor
+     */
+    public CRCWritableByteChannel(WritableByteChannel channel, CRC crc)
+    {
+        this(channel, new CRCChecksum(crc));
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException
+    {
+        int position = src.position();
+        int n = channel.write(src);
+        if (n > 0)
+        {
+            checksum.update(src, position, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length) throws IOException
+    {
+        Objects.checkFromIndexSize(offset, length, srcs.length);
+        if (!(channel instanceof GatheringByteChannel))
+        {
+            long total = 0;
+            for (int i = offset; i < offset + length; i++)
+            {
+                int remaining = srcs[i].remaining();
+                int n = write(srcs[i]);
+                total += n;
+                if (n < remaining)
+                {
+                    break;
+                }
+            }
+            return total;
+        }
+
+        if (positions.length < length)
+        {
+            positions = new int[length];
+        }
+        for (int i = 0; i < length; i++)
+        {
+            positions[i] = srcs[offset + i].position();
+        }
+        long n = ((GatheringByteChannel) channel).write(srcs, offset, length);
+        for (int i = 0; i < length && n > 0; i++)
+        {
+            ByteBuffer src = srcs[offset + i];
+            int count = src.position() - positions[i];
+            if (count > 0)
+            {
+                checksum.update(src, positions[i], count);
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs) throws IOException
+    {
+        return write(srcs, 0, srcs.length);
+    }
+
+    @Override
+    public boolean isOpen()
+    {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+
+    /**
+     * Returns the checksum holding CRC of data written so far.
+     * @return the checksum
+     */
+    public CRCChecksum getChecksum()
+    {
+        return checksum;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ ChunkScanner splits data into content-defined chunks using {@link RollingCRC} as the rolling hash. A chunk ends
+ where CRC of the window ending at a byte matches a target under a mask, provided that the chunk is at least
+ the minimal size; a chunk reaching the maximal size ends regardless of the CRC. Since boundaries depend only on
+ nearby content, inserting or deleting data shifts boundaries along with it, which is what deduplication needs.
+
+<p>
+Data may be fed in any number of pieces; a chunk not finished by the end of a piece continues into the next one.
+Boundaries are reported as indices just past the last byte of each chunk, so nothing is allocated while scanning.
+<pre>
+{@code
+    // chunks of 2KB to 64KB, 8KB on average
+    ChunkScanner scanner = new ChunkScanner(new RollingCRC(CRC.Parameters.CRC32, 48), 0x1FFF, 0, 2048, 65536);
+    scanner.scan(data, 0, data.length, end -> chunkEnds.add(end));
+}
+</pre>
+ * */
+public final class ChunkScanner
+{
+    private final RollingCRC rolling;
+    private final long matchMask;     // condition on CRC converted into a condition on the register
+    private final long matchValue;
+    private final int minChunk;
+    private final int maxChunk;
+    private int chunkLength;          // bytes of the current chunk scanned so far
+
+    /**
+     * Creates a scanner.
+     * @param rolling rolling CRC to use; its window is not reset, so it may already hold preceding data
+     * @param mask bits of CRC compared to the target; with n bits set chunks are about 2<sup>n</sup> bytes long
+     * @param target value CRC bits selected by mask must have at the end of a chunk
+     * @param minChunk minimal chunk size in bytes, at least 1
+     * @param maxChunk maximal chunk size in bytes, not less than minimal one
+     * @throws IllegalArgumentException if chunk sizes are invalid
+     */
+    public ChunkScanner(RollingCRC rolling, long mask, long target, int minChunk, int maxChunk)
+    {
+        if (minChunk < 1 || maxChunk < minChunk)
+            throw new IllegalArgumentException("Invalid chunk sizes: " + minChunk + ".." + maxChunk);
+
+        long[] condition = rolling.registerCondition(mask, target);
+        this.rolling = rolling;
+        this.matchMask = condition[0];
+        this.matchValue = condition[1];
+        this.minChunk = minChunk;
+        this.maxChunk = maxChunk;
+    }
+
+    /**
+     * Scans a part of a byte array, reporting ends of chunks finished within it.
+     * @param data data to scan
+     * @param offset is 0-based offset of the data in the array supplied
+     * @param length indicates number of bytes to scan
+     * @param boundaries receives index within the array just past the last byte of each chunk
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void scan(byte[] data, int offset, int length, IntConsumer boundaries)
+    {
+        Objects.checkFromIndexSize(offset, length, data.length);
+
+        RollingCRC r = rolling;
+        boolean reflected = r.isReflected();
+        long[] table = r.table;
+        long[] outTable = r.outTable;
+        byte[] history = r.history;
+        int window = history.length;
+        int head = r.head;
+        long register = r.register;
+        int chunk = chunkLength;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            byte in = data[i];
+            byte out = history[head];
+            history[head] = in;
+            if (++head == window)
+            {
+                head = 0;
+            }
+            register = reflected
+                    ? table[((int) register ^ in) & 0xFF] ^ (register >>> 8) ^ outTable[out & 0xFF]
+                    : table[((int) (register >>> 56) ^ in) & 0xFF] ^ (register << 8) ^ outTable[out & 0xFF];
+
+            if (++chunk >= minChunk && ((register & matchMask) == matchValue || chunk >= maxChunk))
+            {
+                boundaries.accept(i + 1);
+                chunk = 0;
+            }
+        }
+
+        r.head = head;
+        r.register = register;
+        chunkLength = chunk;
+    }
+
+    /**
+     * Scans a part of a ByteBuffer like {@link #scan(byte[], int, int, IntConsumer)}. Buffer's position and limit are not changed.
+     * @param data data to scan
+     * @param offset is 0-based absolute index of the first byte to scan
+     * @param length indicates number of bytes to scan
+     * @param boundaries receives absolute index just past the last byte of each chunk
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public void scan(ByteBuffer data, int offset, int length, IntConsumer boundaries)
+    {
+        Objects.checkFromIndexSize(offset, length, data.limit());
+
+        RollingCRC r = rolling;
+        boolean reflected = r.isReflected();
+        long[] table = r.table;
+        long[] outTable = r.outTable;
+        byte[] history = r.history;
+        int window = history.length;
+        int head = r.head;
+        long register = r.register;
+        int chunk = chunkLength;
+
+        for (int i = offset; i < offset + length; i++)
+        {
+            byte in = data.get(i);
+            byte out = history[head];
+            history[head] = in;
+            if (++head == window)
+            {
+                head = 0;
+            }
+            register = reflected
+                    ? table[((int) register ^ in) & 0xFF] ^ (register >>> 8) ^ outTable[out & 0xFF]
+                    : table[((int) (register >>> 56) ^ in) & 0xFF] ^ (register << 8) ^ outTable[out & 0xFF];
+
+            if (++chunk >= minChunk && ((register & matchMask) == matchValue || chunk >= maxChunk))
+            {
+                boundaries.accept(i + 1);
+                chunk = 0;
+            }
+        }
+
+        r.head = head;
+        r.register = register;
+        chunkLength = chunk;
+    }
+
+    /**
+     * Returns number of bytes scanned since the end of the last chunk, i.e. size of the unfinished chunk.
+     * @return size of the unfinished chunk in bytes
+     */
+    public int getPendingLength()
+    {
+        return chunkLength;
+    }
+
+    /**
+     * Starts a new chunk and resets the rolling CRC, as if nothing has been scanned.
+     */
+    public void reset()
+    {
+        rolling.reset();
+        chunkLength = 0;
+    }
+}
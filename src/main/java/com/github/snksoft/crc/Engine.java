@@ -0,0 +1,89 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Engine is the part of a {@link CRC} processor that actually pushes data through the CRC register.
+ * <p>
+ * All engines work on the same "intermediate value" as {@link CRC#init()}, {@link CRC#update(long, byte[], int, int)}
+ * and {@link CRC#finalCRC(long)}: for algorithms with reflected input the register holds reflected value,
+ * otherwise it holds the value as is in the lowest <code>width</code> bits. Bits above <code>width</code>
+ * are ignored by {@link CRC#finalCRC(long)}, so engines are free to leave them in any state.
+ */
+abstract class Engine
+{
+    /**
+     * Feeds a part of a byte array through the CRC register.
+     * @param curValue CRC intermediate value so far
+     * @param chunk data chunk to be processed by this call
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @return updated intermediate value
+     */
+    abstract long update(long curValue, byte[] chunk, int offset, int length);
+
+    /**
+     * Feeds a part of a ByteBuffer through the CRC register. Buffers backed by an accessible array are processed
+     * as arrays, other buffers (direct and read-only ones) are processed with {@link #updateBuffer(long, ByteBuffer, int, int)}.
+     * Buffer position, limit and byte order are the same on return, though an engine may move position and limit
+     * while reading (see {@link IntrinsicEngine}).
+     * @param curValue CRC intermediate value so far
+     * @param chunk data chunk to be processed by this call
+     * @param offset is 0-based absolute index of the first byte to be processed
+     * @param length indicates number of bytes to be processed.
+     * @return updated intermediate value
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    long update(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, chunk.limit());
+        if (chunk.hasArray())
+        {
+            return update(curValue, chunk.array(), chunk.arrayOffset() + offset, length);
+        }
+        return updateBuffer(curValue, chunk, offset, length);
+    }
+
+    /**
+     * Feeds several separate messages stored in one array through registers starting from the same value.
+     * Engines able to process messages side by side override this; by default they are processed one by one.
+     * Ranges have already been checked by the caller.
+     * @param curValue CRC intermediate value every message starts from
+     * @param data array holding the messages
+     * @param offsets offsets of the messages in the array
+     * @param lengths lengths of the messages
+     * @param index index of the first message to process
+     * @param registers receives updated intermediate values; its length is the number of messages to process
+     */
+    void updateBatch(long curValue, byte[] data, int[] offsets, int[] lengths, int index, long[] registers)
+    {
+        for (int k = 0; k < registers.length; k++)
+        {
+            registers[k] = update(curValue, data, offsets[index + k], lengths[index + k]);
+        }
+    }
+
+    /**
+     * Works like {@link #updateBatch(long, byte[], int[], int[], int, long[])}, but messages are remaining bytes
+     * of buffers, from position to limit.
+     */
+    void updateBatch(long curValue, ByteBuffer[] buffers, int index, long[] registers)
+    {
+        for (int k = 0; k < registers.length; k++)
+        {
+            ByteBuffer buffer = buffers[index + k];
+            registers[k] = update(curValue, buffer, buffer.position(), buffer.remaining());
+        }
+    }
+
+    /**
+     * Feeds a part of a ByteBuffer without accessible backing array through the CRC register.
+     * Range has already been checked by the caller.
+     */
+    abstract long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length);
+}
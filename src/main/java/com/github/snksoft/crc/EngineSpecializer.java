@@ -0,0 +1,245 @@
+package com.github.snksoft.crc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Defines a copy of {@link SpecializedEngine} for an algorithm. The bytecode of the template is read once, its class name
+ * is replaced in the constant pool and the copy is defined with {@link MethodHandles.Lookup#defineClass(byte[])} in this
+ * package. The copy takes its configuration from {@link #take(Class)} when initialized.
+ * <p>
+ * Defined classes are never unloaded, so engines are kept here, one per width, polynomial and input reflection,
+ * rather than in evictable {@link TableCache} entries, and at most {@link #MAX_CLASSES} are defined per class loader;
+ * after that {@link #specialize(TableCache.Key, long[])} returns null for new algorithms and callers use the shared
+ * table engines. So do algorithms whose class could not be defined.
+ */
+final class EngineSpecializer
+{
+    static final int MAX_CLASSES = 256;
+
+    private static final String TEMPLATE = SpecializedEngine.class.getName();
+    private static final Map<TableCache.Key, Engine> engines = new HashMap<>();   // null values for failed algorithms
+    private static final ConcurrentHashMap<String, Shape> pending = new ConcurrentHashMap<>();
+    private static int counter;         // classes defined, guarded by engines
+    private static volatile byte[] template;
+
+    /**
+     * Everything a specialised engine depends on.
+     */
+    static final class Shape
+    {
+        final boolean reflected;
+        final int shift;            // 64 - width
+        final long[][] tables;      // slicing-by-16 tables, byte-swapped for MSB first algorithms
+
+        Shape(boolean reflected, int shift, long[][] tables)
+        {
+            this.reflected = reflected;
+            this.shift = shift;
+            this.tables = tables;
+        }
+    }
+
+    private EngineSpecializer()
+    {
+    }
+
+    /**
+     * Returns engine of the class defined for an algorithm, defining the class on first request.
+     * @param key width, polynomial and input reflection of the algorithm
+     * @param crctable table where entry i is the CRC register after feeding byte i into a zero register
+     * @return the engine, or null if no more classes can be defined or the class could not be defined
+     */
+    static Engine specialize(TableCache.Key key, long[] crctable)
+    {
+        synchronized (engines)
+        {
+            if (engines.containsKey(key))
+            {
+                return engines.get(key);
+            }
+            if (counter >= MAX_CLASSES)
+            {
+                return null;
+            }
+
+            long start = CRCMetrics.ENABLED ? System.nanoTime() : 0;
+            String name = TEMPLATE + "_" + (counter + 1);
+            Engine engine = null;
+            pending.put(name, new Shape(key.reflectIn, 64 - key.width, buildTables(crctable, key.width, key.reflectIn)));
+            try
+            {
+                Class<?> engineClass = MethodHandles.lookup().defineClass(rename(template(), TEMPLATE, name));
+                counter++;
+                engine = (Engine) engineClass.getDeclaredConstructor().newInstance();
+                if (CRCMetrics.ENABLED)
+                {
+                    CRCMetrics.tableBuilt("specialized", key.width, key.polynomial, key.reflectIn, System.nanoTime() - start);
+                }
+            }
+            catch (ReflectiveOperationException | RuntimeException | LinkageError e)
+            {
+                // e.g. class file not available or initialization failed; the algorithm is not tried again,
+                // and a class defined but not initialized still counts
+            }
+            finally
+            {
+                pending.remove(name);
+            }
+            engines.put(key, engine);
+            return engine;
+        }
+    }
+
+    /**
+     * Returns configuration of a class being defined. Called from its static initializer.
+     * @throws IllegalStateException if the class is not being defined by {@link #specialize(TableCache.Key, long[])}
+     */
+    static Shape take(Class<?> engineClass)
+    {
+        Shape shape = pending.remove(engineClass.getName());
+        if (shape == null)
+            throw new IllegalStateException(engineClass.getName() + " is a template and can not be used directly");
+        return shape;
+    }
+
+    /**
+     * Builds 16 slicing tables the same way {@link InterleavedEngine} builds its 8.
+     */
+    private static long[][] buildTables(long[] crctable, int width, boolean reflected)
+    {
+        int shift = 64 - width;
+        long[][] tables = new long[16][256];
+        long[] t0 = tables[0];
+        for (int i = 0; i < 256; i++)
+        {
+            t0[i] = reflected ? crctable[i] : crctable[i] << shift;
+        }
+        for (int k = 1; k < 16; k++)
+        {
+            for (int i = 0; i < 256; i++)
+            {
+                long v = tables[k - 1][i];
+                tables[k][i] = reflected ? (v >>> 8) ^ t0[(int) v & 0xFF] : (v << 8) ^ t0[(int) (v >>> 56)];
+            }
+        }
+        if (!reflected)
+        {
+            for (long[] table : tables)
+            {
+                for (int i = 0; i < 256; i++)
+                {
+                    table[i] = Long.reverseBytes(table[i]);
+                }
+            }
+        }
+        return tables;
+    }
+
+    private static byte[] template()
+    {
+        byte[] bytes = template;
+        if (bytes == null)
+        {
+            String resource = TEMPLATE.substring(TEMPLATE.lastIndexOf('.') + 1) + ".class";
+            try (InputStream in = EngineSpecializer.class.getResourceAsStream(resource))
+            {
+                if (in == null)
+                    throw new IllegalStateException("Class file of " + TEMPLATE + " is not available");
+                bytes = in.readAllBytes();
+            }
+            catch (IOException e)
+            {
+                throw new UncheckedIOException(e);
+            }
+            template = bytes;
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns copy of a class file with the class renamed. Constant pool entries holding the name or a descriptor
+     * of the class are rewritten; everything else refers to the constant pool by index and is copied as is.
+     * Entries are decoded as ISO-8859-1, which maps bytes to chars one to one, so that entries not mentioning
+     * the class come out unchanged whatever they hold.
+     */
+    static byte[] rename(byte[] classFile, String oldName, String newName)
+    {
+        String oldInternal = oldName.replace('.', '/');
+        String newInternal = newName.replace('.', '/');
+        ByteWriter out = new ByteWriter(classFile.length + 256);
+        out.write(classFile, 0, 8);                 // magic and version
+        int count = readUnsigned(classFile, 8);
+        out.writeShort(count);
+
+        int pos = 10;
+        for (int index = 1; index < count; index++)
+        {
+            int tag = classFile[pos] & 0xFF;
+            int size;
+            switch (tag)
+            {
+                case 1:                             // Utf8
+                    int length = readUnsigned(classFile, pos + 1);
+                    String value = new String(classFile, pos + 3, length, StandardCharsets.ISO_8859_1);
+                    String renamed = value.equals(oldInternal) ? newInternal
+                            : value.replace('L' + oldInternal + ';', 'L' + newInternal + ';');
+                    byte[] bytes = renamed.getBytes(StandardCharsets.ISO_8859_1);
+                    out.write(classFile, pos, 1);
+                    out.writeShort(bytes.length);
+                    out.write(bytes, 0, bytes.length);
+                    pos += 3 + length;
+                    continue;
+                case 7: case 8: case 16: case 19: case 20:      // Class, String, MethodType, Module, Package
+                    size = 3;
+                    break;
+                case 15:                            // MethodHandle
+                    size = 4;
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    size = 5;
+                    break;
+                case 5: case 6:                     // Long and Double take two entries
+                    size = 9;
+                    index++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown constant pool tag " + tag + " at " + pos);
+            }
+            out.write(classFile, pos, size);
+            pos += size;
+        }
+        out.write(classFile, pos, classFile.length - pos);
+        return out.toByteArray();
+    }
+
+    private static int readUnsigned(byte[] bytes, int pos)
+    {
+        return ((bytes[pos] & 0xFF) << 8) | (bytes[pos + 1] & 0xFF);
+    }
+
+    private static final class ByteWriter extends ByteArrayOutputStream
+    {
+        ByteWriter(int size)
+        {
+            super(size);
+        }
+
+        void writeShort(int value)
+        {
+            write(value >>> 8);
+            write(value);
+        }
+    }
+}
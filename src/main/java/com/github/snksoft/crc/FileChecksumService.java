@@ -0,0 +1,304 @@
+package com.github.snksoft.crc;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ FileChecksumService calculates CRCs of many files concurrently, which hides I/O latency that dominates
+ checksumming of many small or medium files one after another. Files are read with {@link FileChannel} into
+ direct buffers taken from a pool, so memory use is bounded by the concurrency limit times the buffer size
+ and nothing is allocated per read. Each file can be checksummed with several algorithms in the same pass.
+
+<p>
+When running on Java 21 or later, each file is processed by its own virtual thread; on older versions
+a fixed pool of platform threads is used. Either way at most the configured number of files is processed at once.
+<pre>
+{@code
+    try (FileChecksumService service = new FileChecksumService(64, 1 << 16, Algorithm.CRC_32_ISCSI.crc())) {
+        service.checksumTree(root, new FileChecksumService.Listener() {
+            public void completed(Path file, long size, long[] crcs) { manifest.put(file, crcs[0]); }
+            public void failed(Path file, IOException exception) { log.warn(file, exception); }
+        });
+    }
+}
+</pre>
+ * */
+public final class FileChecksumService implements AutoCloseable
+{
+    /**
+     * Receives results of checksumming files. Methods are called from worker threads as soon as each file
+     * is done, possibly concurrently, so implementations must be thread safe.
+     */
+    public interface Listener
+    {
+        /**
+         * Called when a file has been checksummed.
+         * @param file the file
+         * @param size number of bytes read
+         * @param crcs CRCs of the file, in the same order as processors of the service
+         */
+        void completed(Path file, long size, long[] crcs);
+
+        /**
+         * Called when a file could not be checksummed.
+         * @param file the file
+         * @param exception the reason
+         */
+        void failed(Path file, IOException exception);
+    }
+
+    private final CRC[] crcs;
+    private final int bufferSize;
+    private final ExecutorService executor;
+    private final boolean ownExecutor;
+    private final Semaphore permits;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a service running on virtual threads if available, or on its own pool of platform threads otherwise.
+     * @param concurrency maximal number of files processed at once
+     * @param bufferSize size of read buffers in bytes
+     * @param crcs processors of the algorithms to calculate CRCs of every file with
+     * @throws IllegalArgumentException if concurrency or buffer size is not positive or no processors are given
+     */
+    public FileChecksumService(int concurrency, int bufferSize, CRC... crcs)
+    {
+        this(newExecutor(concurrency), true, concurrency, bufferSize, crcs);
+    }
+
+    /**
+     * Creates a service running on specified executor. The executor is not shut down when the service is closed.
+     * @param executor executor to run tasks in
+     * @param concurrency maximal number of files processed at once
+     * @param bufferSize size of read buffers in bytes
+     * @param crcs processors of the algorithms to calculate CRCs of every file with
+     * @throws IllegalArgumentException if concurrency or buffer size is not positive or no processors are given
+     */
+    public FileChecksumService(ExecutorService executor, int concurrency, int bufferSize, CRC... crcs)
+    {
+        this(executor, false, concurrency, bufferSize, crcs);
+    }
+
+    private FileChecksumService(ExecutorService executor, boolean ownExecutor, int concurrency, int bufferSize, CRC... crcs)
+    {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        if (crcs.length == 0)
+            throw new IllegalArgumentException("No CRC processors given");
+
+        this.crcs = crcs.clone();
+        this.bufferSize = bufferSize;
+        this.executor = executor;
+        this.ownExecutor = ownExecutor;
+        this.permits = new Semaphore(concurrency);
+    }
+
+    /**
+     * Returns executor creating a virtual thread per task when running on Java 21 or later,
+     * or a fixed pool of daemon platform threads otherwise.
+     */
+    private static ExecutorService newExecutor(int concurrency)
+    {
+        try
+        {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            return Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+                Thread thread = new Thread(runnable, "crc-file-checksum");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Checksums specified files and returns when all of them are done. Results are passed to the listener
+     * as soon as each file is done, in no particular order.
+     * @param files files to checksum
+     * @param listener receives results
+     * @throws InterruptedException if interrupted; files already started are still processed and reported
+     */
+    public void checksum(Collection<Path> files, Listener listener) throws InterruptedException
+    {
+        Phaser pending = new Phaser(1);
+        for (Path file : files)
+        {
+            submit(file, listener, pending);
+        }
+        pending.awaitAdvanceInterruptibly(pending.arrive());
+    }
+
+    /**
+     * Checksums all regular files in a directory tree and returns when all of them are done. Symbolic links
+     * are not followed. Files and directories that can not be read are reported to the listener as failures.
+     * @param root root of the tree
+     * @param listener receives results
+     * @throws InterruptedException if interrupted; files already started are still processed and reported
+     */
+    public void checksumTree(Path root, Listener listener) throws InterruptedException
+    {
+        Phaser pending = new Phaser(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        try
+        {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>()
+            {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+                {
+                    if (attrs.isRegularFile())
+                    {
+                        try
+                        {
+                            submit(file, listener, pending);
+                        }
+                        catch (InterruptedException e)
+                        {
+                            interrupted.set(true);
+                            return FileVisitResult.TERMINATE;
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exception)
+                {
+                    listener.failed(file, exception);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exception)
+                {
+                    if (exception != null)
+                    {
+                        listener.failed(dir, exception);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        catch (IOException e)
+        {
+            // only thrown for the root, the visitor handles everything else
+            listener.failed(root, e);
+        }
+        if (interrupted.get())
+            throw new InterruptedException();
+        pending.awaitAdvanceInterruptibly(pending.arrive());
+    }
+
+    /**
+     * Starts processing of a file as soon as the concurrency limit allows it.
+     * @param pending phaser of the calling method, one party is registered for the file until it is done
+     */
+    private void submit(Path file, Listener listener, Phaser pending) throws InterruptedException
+    {
+        permits.acquire();
+        pending.register();
+        try
+        {
+            executor.execute(() -> {
+                try
+                {
+                    process(file, listener);
+                }
+                finally
+                {
+                    permits.release();
+                    pending.arriveAndDeregister();
+                }
+            });
+        }
+        catch (RuntimeException e)
+        {
+            permits.release();
+            pending.arriveAndDeregister();
+            throw e;
+        }
+    }
+
+    private void process(Path file, Listener listener)
+    {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null)
+        {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        long[] values = new long[crcs.length];
+        for (int k = 0; k < crcs.length; k++)
+        {
+            values[k] = crcs[k].init();
+        }
+
+        long size = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            for (;;)
+            {
+                buffer.clear();
+                int n = channel.read(buffer);
+                if (n < 0)
+                {
+                    break;
+                }
+                for (int k = 0; k < crcs.length; k++)
+                {
+                    values[k] = crcs[k].update(values[k], buffer, 0, n);
+                }
+                size += n;
+            }
+        }
+        catch (IOException e)
+        {
+            buffers.offer(buffer);
+            listener.failed(file, e);
+            return;
+        }
+        buffers.offer(buffer);
+
+        for (int k = 0; k < crcs.length; k++)
+        {
+            values[k] = crcs[k].finalCRC(values[k]);
+        }
+        listener.completed(file, size, values);
+    }
+
+    /**
+     * Shuts down threads of the service, if it created them. Does not wait for running tasks.
+     */
+    @Override
+    public void close()
+    {
+        if (ownExecutor)
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Table driven engine splitting data into {@value #STREAMS} independent streams processed in the same loop,
+ * in the spirit of the 3-way CRC32C technique: each stream has its own dependency chain, so lookups of different
+ * streams overlap instead of waiting for each other.
+ * <p>
+ * Data is consumed in rounds of {@value #STREAMS} consecutive blocks of {@value #BLOCK} bytes. The first block
+ * continues from the current register, the others start from zero and are processed with slicing-by-8 side by side.
+ * At the end of a round registers of the blocks are stitched together the same way {@link CRC#combine(long, long, long)}
+ * does it: register of A||B is register of A shifted by length of B xor register of B. Since blocks have fixed
+ * length, shifting by a block is a linear function of the register and is done with 8 lookups into precomputed tables.
+ * Whatever is left after the last round is passed to the regular slicing engine.
+ * <p>
+ * Registers of MSB first algorithms are left-aligned in 64 bits and kept byte-swapped, and so are their tables.
+ * This way input is always read little-endian and both kinds of algorithms share the same loop.
+ */
+final class InterleavedEngine extends Engine
+{
+    /** Number of streams processed side by side */
+    static final int STREAMS = 4;
+    /** Bytes per stream per round; a multiple of 8 */
+    static final int BLOCK = 256;
+
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final boolean reflected;
+    private final int shift;        // 64 - width; used to left-align register of MSB first algorithms
+    private final long[][] tables;  // slicing-by-8 tables
+    private final long[][] skip;    // skip[k][b]: effect of BLOCK zero bytes on register having only byte k set to b
+    private final Engine fallback;
+
+    /**
+     * @param crctable table where entry i is the CRC register after feeding byte i into a zero register
+     * @param width width of the CRC expressed in bits
+     * @param reflected whether the algorithm has reflected input
+     * @param polynomial arithmetic modulo CRC polynomial for registers of this algorithm
+     * @param fallback engine processing data too short for a round and the rest after the last round
+     */
+    InterleavedEngine(long[] crctable, int width, boolean reflected, Polynomial polynomial, Engine fallback)
+    {
+        this.reflected = reflected;
+        this.shift = 64 - width;
+        this.fallback = fallback;
+        this.tables = new long[8][256];
+        this.skip = new long[8][256];
+
+        long[] t0 = tables[0];
+        for (int i = 0; i < 256; i++)
+        {
+            t0[i] = reflected ? crctable[i] : crctable[i] << shift;
+        }
+        for (int k = 1; k < 8; k++)
+        {
+            for (int i = 0; i < 256; i++)
+            {
+                long v = tables[k - 1][i];
+                tables[k][i] = reflected ? (v >>> 8) ^ t0[(int) v & 0xFF] : (v << 8) ^ t0[(int) (v >>> 56)];
+            }
+        }
+        if (!reflected)
+        {
+            for (long[] table : tables)
+            {
+                for (int i = 0; i < 256; i++)
+                {
+                    table[i] = Long.reverseBytes(table[i]);
+                }
+            }
+        }
+
+        // shifting is linear, so entries for single bits are enough to fill the tables
+        for (int k = 0; k < 8; k++)
+        {
+            for (int bit = 0; bit < 8; bit++)
+            {
+                long register = toRegister(1L << (8 * k + bit));
+                skip[k][1 << bit] = fromRegister(polynomial.shift(register, BLOCK));
+            }
+            for (int b = 1; b < 256; b++)
+            {
+                skip[k][b] = skip[k][b & (b - 1)] ^ skip[k][b & -b];
+            }
+        }
+    }
+
+    /**
+     * Returns slicing-by-8 tables in the representation used by the loop, for code reading input
+     * in other ways (see <code>SegmentCRC</code> in Java 22 sources). Tables must not be modified.
+     */
+    long[][] tables()
+    {
+        return tables;
+    }
+
+    /** Converts CRC intermediate value into the representation used by the loop */
+    long fromRegister(long register)
+    {
+        return reflected ? register : Long.reverseBytes(register << shift);
+    }
+
+    /** Converts value used by the loop back into CRC intermediate value */
+    long toRegister(long value)
+    {
+        return reflected ? value : Long.reverseBytes(value) >>> shift;
+    }
+
+    private long skip(long value)
+    {
+        long[][] s = skip;
+        return s[0][(int) value & 0xFF] ^ s[1][(int) (value >>> 8) & 0xFF]
+             ^ s[2][(int) (value >>> 16) & 0xFF] ^ s[3][(int) (value >>> 24) & 0xFF]
+             ^ s[4][(int) (value >>> 32) & 0xFF] ^ s[5][(int) (value >>> 40) & 0xFF]
+             ^ s[6][(int) (value >>> 48) & 0xFF] ^ s[7][(int) (value >>> 56)];
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        int rounds = length / (STREAMS * BLOCK);
+        if (rounds == 0)
+        {
+            return fallback.update(curValue, chunk, offset, length);
+        }
+
+        long[][] t = tables;
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        long crc = fromRegister(curValue);
+        int i = offset;
+        for (int round = 0; round < rounds; round++, i += STREAMS * BLOCK)
+        {
+            long a = crc, b = 0, c = 0, d = 0;
+            for (int j = i, end = i + BLOCK; j < end; j += 8)
+            {
+                long x = a ^ (long) LE_LONG.get(chunk, j);
+                long y = b ^ (long) LE_LONG.get(chunk, j + BLOCK);
+                long z = c ^ (long) LE_LONG.get(chunk, j + 2 * BLOCK);
+                long w = d ^ (long) LE_LONG.get(chunk, j + 3 * BLOCK);
+                a = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                  ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                  ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                  ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+                b = t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+                  ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+                  ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+                  ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+                c = t7[(int) z & 0xFF] ^ t6[(int) (z >>> 8) & 0xFF]
+                  ^ t5[(int) (z >>> 16) & 0xFF] ^ t4[(int) (z >>> 24) & 0xFF]
+                  ^ t3[(int) (z >>> 32) & 0xFF] ^ t2[(int) (z >>> 40) & 0xFF]
+                  ^ t1[(int) (z >>> 48) & 0xFF] ^ t0[(int) (z >>> 56)];
+                d = t7[(int) w & 0xFF] ^ t6[(int) (w >>> 8) & 0xFF]
+                  ^ t5[(int) (w >>> 16) & 0xFF] ^ t4[(int) (w >>> 24) & 0xFF]
+                  ^ t3[(int) (w >>> 32) & 0xFF] ^ t2[(int) (w >>> 40) & 0xFF]
+                  ^ t1[(int) (w >>> 48) & 0xFF] ^ t0[(int) (w >>> 56)];
+            }
+            crc = skip(skip(skip(a) ^ b) ^ c) ^ d;
+        }
+        return fallback.update(toRegister(crc), chunk, i, offset + length - i);
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        int rounds = length / (STREAMS * BLOCK);
+        if (rounds == 0)
+        {
+            return fallback.updateBuffer(curValue, chunk, offset, length);
+        }
+
+        boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+        long[][] t = tables;
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        long crc = fromRegister(curValue);
+        int i = offset;
+        for (int round = 0; round < rounds; round++, i += STREAMS * BLOCK)
+        {
+            long a = crc, b = 0, c = 0, d = 0;
+            for (int j = i, end = i + BLOCK; j < end; j += 8)
+            {
+                long x = chunk.getLong(j);
+                long y = chunk.getLong(j + BLOCK);
+                long z = chunk.getLong(j + 2 * BLOCK);
+                long w = chunk.getLong(j + 3 * BLOCK);
+                if (swap)
+                {
+                    x = Long.reverseBytes(x);
+                    y = Long.reverseBytes(y);
+                    z = Long.reverseBytes(z);
+                    w = Long.reverseBytes(w);
+                }
+                x ^= a;
+                y ^= b;
+                z ^= c;
+                w ^= d;
+                a = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                  ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                  ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                  ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+                b = t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+                  ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+                  ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+                  ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+                c = t7[(int) z & 0xFF] ^ t6[(int) (z >>> 8) & 0xFF]
+                  ^ t5[(int) (z >>> 16) & 0xFF] ^ t4[(int) (z >>> 24) & 0xFF]
+                  ^ t3[(int) (z >>> 32) & 0xFF] ^ t2[(int) (z >>> 40) & 0xFF]
+                  ^ t1[(int) (z >>> 48) & 0xFF] ^ t0[(int) (z >>> 56)];
+                d = t7[(int) w & 0xFF] ^ t6[(int) (w >>> 8) & 0xFF]
+                  ^ t5[(int) (w >>> 16) & 0xFF] ^ t4[(int) (w >>> 24) & 0xFF]
+                  ^ t3[(int) (w >>> 32) & 0xFF] ^ t2[(int) (w >>> 40) & 0xFF]
+                  ^ t1[(int) (w >>> 48) & 0xFF] ^ t0[(int) (w >>> 56)];
+            }
+            crc = skip(skip(skip(a) ^ b) ^ c) ^ d;
+        }
+        return fallback.updateBuffer(toRegister(crc), chunk, i, offset + length - i);
+    }
+
+    /**
+     * Processes {@value #STREAMS} separate messages side by side for as long as each of them has a whole word left,
+     * then finishes each one with the regular slicing engine.
+     */
+    @Override
+    void updateBatch(long curValue, byte[] data, int[] offsets, int[] lengths, int index, long[] registers)
+    {
+        if (registers.length != STREAMS)
+        {
+            super.updateBatch(curValue, data, offsets, lengths, index, registers);
+            return;
+        }
+
+        long[][] t = tables;
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        int pa = offsets[index], pb = offsets[index + 1], pc = offsets[index + 2], pd = offsets[index + 3];
+        int words = Math.min(Math.min(lengths[index], lengths[index + 1]), Math.min(lengths[index + 2], lengths[index + 3])) >>> 3;
+        long a = fromRegister(curValue), b = a, c = a, d = a;
+        for (int k = 0; k < words; k++, pa += 8, pb += 8, pc += 8, pd += 8)
+        {
+            long x = a ^ (long) LE_LONG.get(data, pa);
+            long y = b ^ (long) LE_LONG.get(data, pb);
+            long z = c ^ (long) LE_LONG.get(data, pc);
+            long w = d ^ (long) LE_LONG.get(data, pd);
+            a = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+              ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+              ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+              ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+            b = t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+              ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+              ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+              ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+            c = t7[(int) z & 0xFF] ^ t6[(int) (z >>> 8) & 0xFF]
+              ^ t5[(int) (z >>> 16) & 0xFF] ^ t4[(int) (z >>> 24) & 0xFF]
+              ^ t3[(int) (z >>> 32) & 0xFF] ^ t2[(int) (z >>> 40) & 0xFF]
+              ^ t1[(int) (z >>> 48) & 0xFF] ^ t0[(int) (z >>> 56)];
+            d = t7[(int) w & 0xFF] ^ t6[(int) (w >>> 8) & 0xFF]
+              ^ t5[(int) (w >>> 16) & 0xFF] ^ t4[(int) (w >>> 24) & 0xFF]
+              ^ t3[(int) (w >>> 32) & 0xFF] ^ t2[(int) (w >>> 40) & 0xFF]
+              ^ t1[(int) (w >>> 48) & 0xFF] ^ t0[(int) (w >>> 56)];
+        }
+        registers[0] = fallback.update(toRegister(a), data, pa, offsets[index] + lengths[index] - pa);
+        registers[1] = fallback.update(toRegister(b), data, pb, offsets[index + 1] + lengths[index + 1] - pb);
+        registers[2] = fallback.update(toRegister(c), data, pc, offsets[index + 2] + lengths[index + 2] - pc);
+        registers[3] = fallback.update(toRegister(d), data, pd, offsets[index + 3] + lengths[index + 3] - pd);
+    }
+
+    @Override
+    void updateBatch(long curValue, ByteBuffer[] buffers, int index, long[] registers)
+    {
+        if (registers.length != STREAMS)
+        {
+            super.updateBatch(curValue, buffers, index, registers);
+            return;
+        }
+
+        ByteBuffer ba = buffers[index], bb = buffers[index + 1], bc = buffers[index + 2], bd = buffers[index + 3];
+        boolean sa = ba.order() != ByteOrder.LITTLE_ENDIAN, sb = bb.order() != ByteOrder.LITTLE_ENDIAN;
+        boolean sc = bc.order() != ByteOrder.LITTLE_ENDIAN, sd = bd.order() != ByteOrder.LITTLE_ENDIAN;
+        long[][] t = tables;
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        int pa = ba.position(), pb = bb.position(), pc = bc.position(), pd = bd.position();
+        int words = Math.min(Math.min(ba.remaining(), bb.remaining()), Math.min(bc.remaining(), bd.remaining())) >>> 3;
+        long a = fromRegister(curValue), b = a, c = a, d = a;
+        for (int k = 0; k < words; k++, pa += 8, pb += 8, pc += 8, pd += 8)
+        {
+            long x = ba.getLong(pa);
+            long y = bb.getLong(pb);
+            long z = bc.getLong(pc);
+            long w = bd.getLong(pd);
+            x = a ^ (sa ? Long.reverseBytes(x) : x);
+            y = b ^ (sb ? Long.reverseBytes(y) : y);
+            z = c ^ (sc ? Long.reverseBytes(z) : z);
+            w = d ^ (sd ? Long.reverseBytes(w) : w);
+            a = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+              ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+              ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+              ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+            b = t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+              ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+              ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+              ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+            c = t7[(int) z & 0xFF] ^ t6[(int) (z >>> 8) & 0xFF]
+              ^ t5[(int) (z >>> 16) & 0xFF] ^ t4[(int) (z >>> 24) & 0xFF]
+              ^ t3[(int) (z >>> 32) & 0xFF] ^ t2[(int) (z >>> 40) & 0xFF]
+              ^ t1[(int) (z >>> 48) & 0xFF] ^ t0[(int) (z >>> 56)];
+            d = t7[(int) w & 0xFF] ^ t6[(int) (w >>> 8) & 0xFF]
+              ^ t5[(int) (w >>> 16) & 0xFF] ^ t4[(int) (w >>> 24) & 0xFF]
+              ^ t3[(int) (w >>> 32) & 0xFF] ^ t2[(int) (w >>> 40) & 0xFF]
+              ^ t1[(int) (w >>> 48) & 0xFF] ^ t0[(int) (w >>> 56)];
+        }
+        registers[0] = fallback.update(toRegister(a), ba, pa, ba.limit() - pa);
+        registers[1] = fallback.update(toRegister(b), bb, pb, bb.limit() - pb);
+        registers[2] = fallback.update(toRegister(c), bc, pc, bc.limit() - pc);
+        registers[3] = fallback.update(toRegister(d), bd, pd, bd.limit() - pd);
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Engine delegating to {@link CRC32} and {@link CRC32C} from the JDK, which HotSpot implements with
+ * hardware instructions (PCLMULQDQ, ARMv8 CRC32 and alike) and which are much faster than any table.
+ * <p>
+ * JDK classes can only start from their initial value, so for an arbitrary intermediate value the result is
+ * assembled with the same math as {@link CRC#combine(long, long, long)}: register after feeding data into
+ * register R is register after feeding the data into the initial register xor R' shifted by data length,
+ * where R' is R xor initial register. Shifting costs a few polynomial multiplications (a single one for
+ * repeated chunks of the same size), so short chunks are handed over to a table driven engine.
+ * <p>
+ * Every thread reuses one JDK checksum of each kind, reset before use, and buffers are handed over in place
+ * with their position and limit moved to the range and restored afterwards, so nothing is allocated per call.
+ */
+final class IntrinsicEngine extends Engine
+{
+    private static final long INIT = 0xFFFFFFFFL;
+    private static final long MASK = 0xFFFFFFFFL;
+
+    /** Chunks shorter than this are processed by table driven engine when starting from initial value */
+    private static final int MIN_LENGTH = 16;
+    /** Chunks shorter than this are processed by table driven engine when continuing a calculation */
+    private static final int MIN_SHIFTED_LENGTH = 512;
+
+    private static final ThreadLocal<CRC32> CRC32_CHECKSUM = ThreadLocal.withInitial(CRC32::new);
+    private static final ThreadLocal<CRC32C> CRC32C_CHECKSUM = ThreadLocal.withInitial(CRC32C::new);
+
+    private final boolean castagnoli;
+    private final Engine fallback;
+    private final Polynomial polynomial;
+
+    private IntrinsicEngine(boolean castagnoli, long polynomial, Engine fallback)
+    {
+        this.castagnoli = castagnoli;
+        this.fallback = fallback;
+        this.polynomial = new Polynomial(32, polynomial, true);
+    }
+
+    /**
+     * Returns true if parameters describe exactly what {@link CRC32} or {@link CRC32C} compute.
+     * @param crcParams CRC algorithm parameters
+     */
+    static boolean supports(CRC.Parameters crcParams)
+    {
+        if (crcParams.getWidth() != 32 || !crcParams.isReflectIn() || !crcParams.isReflectOut()
+                || (crcParams.getInit() & MASK) != INIT || (crcParams.getFinalXor() & MASK) != MASK)
+        {
+            return false;
+        }
+        long polynomial = crcParams.getPolynomial() & MASK;
+        return polynomial == (CRC.Parameters.CRC32.getPolynomial() & MASK)
+                || polynomial == (CRC.Parameters.CRC32C.getPolynomial() & MASK);
+    }
+
+    /**
+     * Returns an intrinsic engine if parameters describe exactly what {@link CRC32} or {@link CRC32C} compute.
+     * @param crcParams CRC algorithm parameters
+     * @param fallback table driven engine for the same parameters, used for short chunks
+     * @return the engine, or null if parameters are not supported
+     */
+    static IntrinsicEngine forParameters(CRC.Parameters crcParams, Engine fallback)
+    {
+        if (!supports(crcParams))
+        {
+            return null;
+        }
+        long polynomial = crcParams.getPolynomial() & MASK;
+        boolean castagnoli = polynomial == (CRC.Parameters.CRC32C.getPolynomial() & MASK);
+        return new IntrinsicEngine(castagnoli, polynomial, fallback);
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        boolean fromInit = (curValue & MASK) == INIT;
+        if (length < (fromInit ? MIN_LENGTH : MIN_SHIFTED_LENGTH))
+        {
+            return fallback.update(curValue, chunk, offset, length);
+        }
+
+        long register;
+        if (castagnoli)
+        {
+            CRC32C checksum = CRC32C_CHECKSUM.get();
+            checksum.reset();
+            checksum.update(chunk, offset, length);
+            register = checksum.getValue() ^ MASK;
+        }
+        else
+        {
+            CRC32 checksum = CRC32_CHECKSUM.get();
+            checksum.reset();
+            checksum.update(chunk, offset, length);
+            register = checksum.getValue() ^ MASK;
+        }
+        return fromInit ? register : polynomial.shift(curValue ^ INIT, length) ^ register;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        boolean fromInit = (curValue & MASK) == INIT;
+        if (length < (fromInit ? MIN_LENGTH : MIN_SHIFTED_LENGTH))
+        {
+            return fallback.updateBuffer(curValue, chunk, offset, length);
+        }
+
+        // JDK checksums read buffers from position to limit, so the range is selected in place and then undone
+        int position = chunk.position();
+        int limit = chunk.limit();
+        long register;
+        try
+        {
+            chunk.limit(offset + length).position(offset);
+            if (castagnoli)
+            {
+                CRC32C checksum = CRC32C_CHECKSUM.get();
+                checksum.reset();
+                checksum.update(chunk);
+                register = checksum.getValue() ^ MASK;
+            }
+            else
+            {
+                CRC32 checksum = CRC32_CHECKSUM.get();
+                checksum.reset();
+                checksum.update(chunk);
+                register = checksum.getValue() ^ MASK;
+            }
+        }
+        finally
+        {
+            chunk.limit(limit).position(position);
+        }
+        return fromInit ? register : polynomial.shift(curValue ^ INIT, length) ^ register;
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.snksoft.crc;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Java Flight Recorder events emitted by {@link CRCMetrics}. This is the only class referring to
+ * the optional <code>jdk.jfr</code> module and it is loaded only after the module has been found available.
+ * Calculation events are created only for calculations of at least the JFR threshold of {@link CRCMetrics},
+ * and kept only when enabled in the recording settings; smaller calculations never reach this class.
+ */
+final class JfrEvents
+{
+    private JfrEvents()
+    {
+    }
+
+    @Name("com.github.snksoft.crc.Calculation")
+    @Label("CRC Calculation")
+    @Category({"Java Application", "CRC"})
+    @Description("Calculation over a large amount of data")
+    @StackTrace(true)
+    static final class Calculation extends Event
+    {
+        @Label("Data Path")
+        String path;
+
+        @Label("Parameters")
+        String parameters;
+
+        @Label("Bytes")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.github.snksoft.crc.TableBuild")
+    @Label("CRC Table Build")
+    @Category({"Java Application", "CRC"})
+    @Description("Lookup tables built for an algorithm")
+    @StackTrace(true)
+    static final class TableBuild extends Event
+    {
+        @Label("Kind")
+        String kind;
+
+        @Label("Width")
+        int width;
+
+        @Label("Polynomial")
+        long polynomial;
+
+        @Label("Reflect In")
+        boolean reflectIn;
+
+        @Label("Build Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long buildTime;
+    }
+
+    /**
+     * Starts an event for a calculation, so that its duration is that of the calculation
+     * and the threshold of the recording applies to it.
+     * @return the event, or null if it is not enabled
+     */
+    static Object beginCalculation()
+    {
+        Calculation event = new Calculation();
+        if (!event.isEnabled())
+        {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void endCalculation(Object started, String path, String parameters, long bytes)
+    {
+        Calculation event = (Calculation) started;
+        event.end();
+        if (event.shouldCommit())
+        {
+            event.path = path;
+            event.parameters = parameters;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
+    static void tableBuild(String kind, int width, long polynomial, boolean reflectIn, long nanos)
+    {
+        TableBuild event = new TableBuild();
+        if (event.isEnabled())
+        {
+            event.kind = kind;
+            event.width = width;
+            event.polynomial = polynomial;
+            event.reflectIn = reflectIn;
+            event.buildTime = nanos;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Table driven engine for CRCs up to 64 bits wide, consuming 8 ("slicing-by-8") or 16 ("slicing-by-16") bytes per step.
+ * <p>
+ * Table <code>k</code> holds the effect of a byte followed by <code>k</code> zero bytes, so a whole 64-bit word
+ * of input can be folded into the register with 8 independent lookups instead of 8 dependent ones.
+ * <p>
+ * Reflected algorithms keep the register in the lowest <code>width</code> bits and consume input little-endian.
+ * Non-reflected (MSB first) algorithms are processed with the register left-aligned in a 64-bit long and consume
+ * input big-endian, which lets the same code handle every width from 1 to 64 bits.
+ * <p>
+ * Buffers without accessible array (e.g. direct ones) are read with bulk {@link ByteBuffer#getLong(int)}
+ * and processed 8 bytes per step.
+ */
+final class LongSlicingEngine extends Engine
+{
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final boolean reflected;
+    private final int shift;        // 64 - width; used to left-align register of MSB first algorithms
+    private final int slices;       // 1, 8 or 16
+    private final long[][] tables;
+
+    /**
+     * Builds slicing tables from a regular 256 entries table.
+     * @param crctable table where entry i is the CRC register after feeding byte i into a zero register
+     * @param width width of the CRC expressed in bits
+     * @param reflected whether the algorithm has reflected input
+     * @param slices number of tables to build; must be 1, 8 or 16
+     */
+    LongSlicingEngine(long[] crctable, int width, boolean reflected, int slices)
+    {
+        if (slices != 1 && slices != 8 && slices != 16)
+            throw new IllegalArgumentException("Unsupported number of tables: " + slices);
+
+        this.reflected = reflected;
+        this.shift = 64 - width;
+        this.slices = slices;
+        this.tables = new long[slices][256];
+
+        long[] t0 = tables[0];
+        for (int i = 0; i < 256; i++)
+        {
+            t0[i] = reflected ? crctable[i] : crctable[i] << shift;
+        }
+        for (int k = 1; k < slices; k++)
+        {
+            long[] prev = tables[k - 1];
+            long[] cur = tables[k];
+            for (int i = 0; i < 256; i++)
+            {
+                long v = prev[i];
+                cur[i] = reflected ? (v >>> 8) ^ t0[(int) v & 0xFF] : (v << 8) ^ t0[(int) (v >>> 56)];
+            }
+        }
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        return reflected ? updateReflected(curValue, chunk, offset, length)
+                         : updateMsbFirst(curValue << shift, chunk, offset, length) >>> shift;
+    }
+
+    private long updateReflected(long crc, byte[] chunk, int offset, int length)
+    {
+        long[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices == 16)
+        {
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            long[] t8 = t[8], t9 = t[9], t10 = t[10], t11 = t[11], t12 = t[12], t13 = t[13], t14 = t[14], t15 = t[15];
+            for (; end - i >= 16; i += 16)
+            {
+                long x = crc ^ (long) LE_LONG.get(chunk, i);
+                long y = (long) LE_LONG.get(chunk, i + 8);
+                crc = t15[(int) x & 0xFF] ^ t14[(int) (x >>> 8) & 0xFF]
+                    ^ t13[(int) (x >>> 16) & 0xFF] ^ t12[(int) (x >>> 24) & 0xFF]
+                    ^ t11[(int) (x >>> 32) & 0xFF] ^ t10[(int) (x >>> 40) & 0xFF]
+                    ^ t9[(int) (x >>> 48) & 0xFF] ^ t8[(int) (x >>> 56)]
+                    ^ t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+                    ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+                    ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+                    ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+            }
+        }
+        if (slices >= 8)
+        {
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long x = crc ^ (long) LE_LONG.get(chunk, i);
+                crc = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                    ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                    ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                    ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+            }
+        }
+
+        long[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[((int) crc ^ chunk[i]) & 0xFF] ^ (crc >>> 8);
+        }
+        return crc;
+    }
+
+    private long updateMsbFirst(long crc, byte[] chunk, int offset, int length)
+    {
+        long[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices == 16)
+        {
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            long[] t8 = t[8], t9 = t[9], t10 = t[10], t11 = t[11], t12 = t[12], t13 = t[13], t14 = t[14], t15 = t[15];
+            for (; end - i >= 16; i += 16)
+            {
+                long x = crc ^ (long) BE_LONG.get(chunk, i);
+                long y = (long) BE_LONG.get(chunk, i + 8);
+                crc = t15[(int) (x >>> 56)] ^ t14[(int) (x >>> 48) & 0xFF]
+                    ^ t13[(int) (x >>> 40) & 0xFF] ^ t12[(int) (x >>> 32) & 0xFF]
+                    ^ t11[(int) (x >>> 24) & 0xFF] ^ t10[(int) (x >>> 16) & 0xFF]
+                    ^ t9[(int) (x >>> 8) & 0xFF] ^ t8[(int) x & 0xFF]
+                    ^ t7[(int) (y >>> 56)] ^ t6[(int) (y >>> 48) & 0xFF]
+                    ^ t5[(int) (y >>> 40) & 0xFF] ^ t4[(int) (y >>> 32) & 0xFF]
+                    ^ t3[(int) (y >>> 24) & 0xFF] ^ t2[(int) (y >>> 16) & 0xFF]
+                    ^ t1[(int) (y >>> 8) & 0xFF] ^ t0[(int) y & 0xFF];
+            }
+        }
+        if (slices >= 8)
+        {
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long x = crc ^ (long) BE_LONG.get(chunk, i);
+                crc = t7[(int) (x >>> 56)] ^ t6[(int) (x >>> 48) & 0xFF]
+                    ^ t5[(int) (x >>> 40) & 0xFF] ^ t4[(int) (x >>> 32) & 0xFF]
+                    ^ t3[(int) (x >>> 24) & 0xFF] ^ t2[(int) (x >>> 16) & 0xFF]
+                    ^ t1[(int) (x >>> 8) & 0xFF] ^ t0[(int) x & 0xFF];
+            }
+        }
+
+        long[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[((int) (crc >>> 56) ^ chunk[i]) & 0xFF] ^ (crc << 8);
+        }
+        return crc;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        return reflected ? updateReflected(curValue, chunk, offset, length)
+                         : updateMsbFirst(curValue << shift, chunk, offset, length) >>> shift;
+    }
+
+    private long updateReflected(long crc, ByteBuffer chunk, int offset, int length)
+    {
+        long[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices >= 8)
+        {
+            boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long word = chunk.getLong(i);
+                long x = crc ^ (swap ? Long.reverseBytes(word) : word);
+                crc = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                    ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                    ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                    ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+            }
+        }
+
+        long[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[((int) crc ^ chunk.get(i)) & 0xFF] ^ (crc >>> 8);
+        }
+        return crc;
+    }
+
+    private long updateMsbFirst(long crc, ByteBuffer chunk, int offset, int length)
+    {
+        long[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices >= 8)
+        {
+            boolean swap = chunk.order() != ByteOrder.BIG_ENDIAN;
+            long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long word = chunk.getLong(i);
+                long x = crc ^ (swap ? Long.reverseBytes(word) : word);
+                crc = t7[(int) (x >>> 56)] ^ t6[(int) (x >>> 48) & 0xFF]
+                    ^ t5[(int) (x >>> 40) & 0xFF] ^ t4[(int) (x >>> 32) & 0xFF]
+                    ^ t3[(int) (x >>> 24) & 0xFF] ^ t2[(int) (x >>> 16) & 0xFF]
+                    ^ t1[(int) (x >>> 8) & 0xFF] ^ t0[(int) x & 0xFF];
+            }
+        }
+
+        long[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = t0[((int) (crc >>> 56) ^ chunk.get(i)) & 0xFF] ^ (crc << 8);
+        }
+        return crc;
+    }
+}
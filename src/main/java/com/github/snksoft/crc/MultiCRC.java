@@ -0,0 +1,318 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ MultiCRC calculates CRCs of several algorithms over the same data in a single pass, e.g. CRC-32C and CRC-64/ECMA
+ of a stored blob or CRC-16 and CRC-32 of a frame. Every 8 bytes of data are read once and fed to all algorithms
+ in the same loop, two algorithms at a time, so their table lookups are independent and overlap instead of
+ waiting for each other, and the data streams through cache only once.
+
+<p>
+Like with {@link CRC}, intermediate values are kept by the caller, one per algorithm, in the order the
+algorithms were given in. Calculations of several data sets can use the same instance at once.
+<pre>
+{@code
+    MultiCRC multi = new MultiCRC(CRC.Parameters.CRC32C, CRC.Parameters.CRC64ECMA);
+    long[] crcs = new long[2];
+    multi.calculateCRCs(blob, 0, blob.length, crcs); // crcs[0] is CRC-32C, crcs[1] is CRC-64/ECMA
+}
+</pre>
+All algorithms go through "slicing-by-8" tables, shared with {@link CRC#updateInterleaved(long, byte[], int, int)}.
+Algorithms computed by {@link java.util.zip.CRC32} and {@link java.util.zip.CRC32C} are faster on their own,
+so use {@link CRC} if only one of them is needed.
+ * */
+public final class MultiCRC
+{
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final CRC[] crcs;
+    private final InterleavedEngine[] engines;
+    private final long[][][] tables;   // tables[k]: slicing-by-8 tables of algorithm k, in the representation of its engine
+
+    /**
+     * Creates a processor for several algorithms.
+     * @param crcParams parameters of the algorithms, at least one
+     * @throws IllegalArgumentException if no parameters are given
+     */
+    public MultiCRC(CRC.Parameters... crcParams)
+    {
+        if (crcParams.length == 0)
+            throw new IllegalArgumentException("No CRC parameters given");
+
+        this.crcs = new CRC[crcParams.length];
+        this.engines = new InterleavedEngine[crcParams.length];
+        this.tables = new long[crcParams.length][][];
+        for (int k = 0; k < crcParams.length; k++)
+        {
+            crcs[k] = new CRC(crcParams[k], 1);
+            engines[k] = TableCache.get(crcParams[k]).interleaved();
+            tables[k] = engines[k].tables();
+        }
+    }
+
+    /**
+     * Returns number of algorithms.
+     * @return number of algorithms
+     */
+    public int size()
+    {
+        return crcs.length;
+    }
+
+    /**
+     * Returns parameters of an algorithm.
+     * @param index index of the algorithm
+     * @return CRC algorithm parameters
+     */
+    public CRC.Parameters getParameters(int index)
+    {
+        return crcs[index].getParameters();
+    }
+
+    /**
+     * Returns initial intermediate values of all algorithms, for iterative calculation.
+     * @return new array of intermediate values, one per algorithm
+     */
+    public long[] init()
+    {
+        long[] curValues = new long[crcs.length];
+        for (int k = 0; k < crcs.length; k++)
+        {
+            curValues[k] = crcs[k].init();
+        }
+        return curValues;
+    }
+
+    /**
+     * Feeds a part of a byte array to all algorithms.
+     * @param curValues intermediate values so far, one per algorithm; updated in place
+     * @param chunk data chunk to be processed by this call
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @throws IllegalArgumentException if there are fewer values than algorithms
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void update(long[] curValues, byte[] chunk, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, chunk.length);
+        toLoop(curValues);
+
+        long[][][] t = tables;
+        int n = t.length;
+        int i = offset;
+        int end = offset + length;
+        if (n == 2)
+        {
+            i = update2(curValues, chunk, i, end);
+        }
+        for (; end - i >= 8; i += 8)
+        {
+            long word = (long) LE_LONG.get(chunk, i);
+            int k = 0;
+            for (; k + 1 < n; k += 2)
+            {
+                long x = curValues[k] ^ word;
+                long y = curValues[k + 1] ^ word;
+                curValues[k] = slice8(t[k], x);
+                curValues[k + 1] = slice8(t[k + 1], y);
+            }
+            if (k < n)
+            {
+                curValues[k] = slice8(t[k], curValues[k] ^ word);
+            }
+        }
+        for (; i < end; i++)
+        {
+            byte b = chunk[i];
+            for (int k = 0; k < n; k++)
+            {
+                long v = curValues[k];
+                curValues[k] = t[k][0][((int) v ^ b) & 0xFF] ^ (v >>> 8);
+            }
+        }
+
+        fromLoop(curValues);
+    }
+
+    /**
+     * Feeds a part of a ByteBuffer to all algorithms, like {@link #update(long[], byte[], int, int)}.
+     * Buffer's position, limit and byte order are not changed.
+     * @see #update(long[], byte[], int, int)
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public void update(long[] curValues, ByteBuffer chunk, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, chunk.limit());
+        if (chunk.hasArray())
+        {
+            update(curValues, chunk.array(), chunk.arrayOffset() + offset, length);
+            return;
+        }
+        toLoop(curValues);
+
+        boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+        long[][][] t = tables;
+        int n = t.length;
+        int i = offset;
+        int end = offset + length;
+        for (; end - i >= 8; i += 8)
+        {
+            long word = chunk.getLong(i);
+            if (swap)
+            {
+                word = Long.reverseBytes(word);
+            }
+            int k = 0;
+            for (; k + 1 < n; k += 2)
+            {
+                long x = curValues[k] ^ word;
+                long y = curValues[k + 1] ^ word;
+                curValues[k] = slice8(t[k], x);
+                curValues[k + 1] = slice8(t[k + 1], y);
+            }
+            if (k < n)
+            {
+                curValues[k] = slice8(t[k], curValues[k] ^ word);
+            }
+        }
+        for (; i < end; i++)
+        {
+            byte b = chunk.get(i);
+            for (int k = 0; k < n; k++)
+            {
+                long v = curValues[k];
+                curValues[k] = t[k][0][((int) v ^ b) & 0xFF] ^ (v >>> 8);
+            }
+        }
+
+        fromLoop(curValues);
+    }
+
+    /**
+     * Returns actual CRC of an algorithm for the data processed so far.
+     * @param curValues intermediate values so far
+     * @param index index of the algorithm
+     * @return calculated CRC
+     */
+    public long finalCRC(long[] curValues, int index)
+    {
+        return crcs[index].finalCRC(curValues[index]);
+    }
+
+    /**
+     * Calculates CRCs of all algorithms over a part of a byte array.
+     * @param data is data to calculate CRCs on
+     * @param offset is 0-based offset of the data to be processed in the array supplied
+     * @param length indicates number of bytes to be processed.
+     * @param results receives calculated CRCs, in the order of algorithms
+     * @throws IllegalArgumentException if results array is shorter than number of algorithms
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void calculateCRCs(byte[] data, int offset, int length, long[] results)
+    {
+        initInto(results);
+        update(results, data, offset, length);
+        finalInto(results);
+    }
+
+    /**
+     * Calculates CRCs of all algorithms over a part of a ByteBuffer. Buffer's position, limit and byte order are not changed.
+     * @see #calculateCRCs(byte[], int, int, long[])
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public void calculateCRCs(ByteBuffer data, int offset, int length, long[] results)
+    {
+        initInto(results);
+        update(results, data, offset, length);
+        finalInto(results);
+    }
+
+    private void initInto(long[] results)
+    {
+        checkValues(results);
+        for (int k = 0; k < crcs.length; k++)
+        {
+            results[k] = crcs[k].init();
+        }
+    }
+
+    private void finalInto(long[] results)
+    {
+        for (int k = 0; k < crcs.length; k++)
+        {
+            results[k] = crcs[k].finalCRC(results[k]);
+        }
+    }
+
+    private void checkValues(long[] curValues)
+    {
+        if (curValues.length < crcs.length)
+            throw new IllegalArgumentException("Too few values: " + curValues.length + " < " + crcs.length);
+    }
+
+    /** Converts intermediate values into the representation used by the loops, in place */
+    private void toLoop(long[] curValues)
+    {
+        checkValues(curValues);
+        for (int k = 0; k < engines.length; k++)
+        {
+            curValues[k] = engines[k].fromRegister(curValues[k]);
+        }
+    }
+
+    /** Converts values used by the loops back into intermediate values, in place */
+    private void fromLoop(long[] curValues)
+    {
+        for (int k = 0; k < engines.length; k++)
+        {
+            curValues[k] = engines[k].toRegister(curValues[k]);
+        }
+    }
+
+    /**
+     * Pair of algorithms, the most common case, with registers and tables in local variables.
+     * @return index of the first byte not processed
+     */
+    private int update2(long[] curValues, byte[] chunk, int i, int end)
+    {
+        long[][] s = tables[0], t = tables[1];
+        long[] s0 = s[0], s1 = s[1], s2 = s[2], s3 = s[3], s4 = s[4], s5 = s[5], s6 = s[6], s7 = s[7];
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        long a = curValues[0];
+        long b = curValues[1];
+        for (; end - i >= 8; i += 8)
+        {
+            long word = (long) LE_LONG.get(chunk, i);
+            long x = a ^ word;
+            long y = b ^ word;
+            a = s7[(int) x & 0xFF] ^ s6[(int) (x >>> 8) & 0xFF]
+              ^ s5[(int) (x >>> 16) & 0xFF] ^ s4[(int) (x >>> 24) & 0xFF]
+              ^ s3[(int) (x >>> 32) & 0xFF] ^ s2[(int) (x >>> 40) & 0xFF]
+              ^ s1[(int) (x >>> 48) & 0xFF] ^ s0[(int) (x >>> 56)];
+            b = t7[(int) y & 0xFF] ^ t6[(int) (y >>> 8) & 0xFF]
+              ^ t5[(int) (y >>> 16) & 0xFF] ^ t4[(int) (y >>> 24) & 0xFF]
+              ^ t3[(int) (y >>> 32) & 0xFF] ^ t2[(int) (y >>> 40) & 0xFF]
+              ^ t1[(int) (y >>> 48) & 0xFF] ^ t0[(int) (y >>> 56)];
+        }
+        curValues[0] = a;
+        curValues[1] = b;
+        return i;
+    }
+
+    private static long slice8(long[][] t, long x)
+    {
+        return t[7][(int) x & 0xFF] ^ t[6][(int) (x >>> 8) & 0xFF]
+             ^ t[5][(int) (x >>> 16) & 0xFF] ^ t[4][(int) (x >>> 24) & 0xFF]
+             ^ t[3][(int) (x >>> 32) & 0xFF] ^ t[2][(int) (x >>> 40) & 0xFF]
+             ^ t[1][(int) (x >>> 48) & 0xFF] ^ t[0][(int) (x >>> 56)];
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Engine with a single 16 entries table, processing data 4 bits per lookup. The table is built in 15 steps
+ * (4 bit shifts and 11 xors), so the engine costs next to nothing to create and is the fastest option for
+ * a few short messages of parameters whose full tables are not worth building. Static calculations of {@link CRC}
+ * build one on every call.
+ * <p>
+ * Reflected algorithms shift the register right using the reflected polynomial, consuming the low nibble of every
+ * byte first, others work on a register left-aligned in 64 bits and consume the high nibble first. Either way bytes
+ * are never reflected and all widths are handled alike, including the ones shorter than 8 bits.
+ */
+final class NibbleEngine extends Engine
+{
+    private final int shift;        // 64 - width for MSB first algorithms (register is left-aligned), 0 for reflected ones
+    private final boolean reflected;
+    private final long[] table = new long[16];
+
+    /**
+     * @param width width of the CRC expressed in bits
+     * @param polynomial CRC polynomial
+     * @param reflected whether the algorithm has reflected input
+     */
+    NibbleEngine(int width, long polynomial, boolean reflected)
+    {
+        this.reflected = reflected;
+        this.shift = reflected ? 0 : 64 - width;
+
+        // the bit fed last leaves the register on the last step, so its entry is just the polynomial;
+        // every bit fed before it is shifted one step further
+        if (reflected)
+        {
+            long poly = Long.reverse(polynomial) >>> (64 - width);
+            table[8] = poly;
+            for (int bit = 4; bit != 0; bit >>= 1)
+            {
+                long prev = table[bit << 1];
+                table[bit] = ((prev & 1) != 0) ? (prev >>> 1) ^ poly : prev >>> 1;
+            }
+        }
+        else
+        {
+            long poly = polynomial << shift;
+            table[1] = poly;
+            for (int bit = 2; bit != 16; bit <<= 1)
+            {
+                long prev = table[bit >> 1];
+                table[bit] = (prev < 0) ? (prev << 1) ^ poly : prev << 1;
+            }
+        }
+        // feeding is linear, so entries for single bits are enough to fill the table
+        for (int n = 3; n < 16; n++)
+        {
+            if ((n & (n - 1)) != 0)
+            {
+                table[n] = table[n & (n - 1)] ^ table[n & -n];
+            }
+        }
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        long[] t = table;
+        long crc = curValue << shift;
+        int end = offset + length;
+        if (reflected)
+        {
+            for (int i = offset; i < end; i++)
+            {
+                crc ^= chunk[i] & 0xFF;
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+            }
+            return crc;
+        }
+        for (int i = offset; i < end; i++)
+        {
+            crc ^= ((long) chunk[i]) << 56;
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+        }
+        return crc >>> shift;
+    }
+
+    /**
+     * Feeds bytes taken from a supplier through the CRC register, for static calculations of {@link CRC}.
+     */
+    long update(long curValue, CRC.ByteSupplier dataSupplier, int offset, int length)
+    {
+        long[] t = table;
+        long crc = curValue << shift;
+        int end = offset + length;
+        if (reflected)
+        {
+            for (int i = offset; i < end; i++)
+            {
+                crc ^= dataSupplier.getByte(i) & 0xFF;
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+            }
+            return crc;
+        }
+        for (int i = offset; i < end; i++)
+        {
+            crc ^= ((long) dataSupplier.getByte(i)) << 56;
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+        }
+        return crc >>> shift;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        long[] t = table;
+        long crc = curValue << shift;
+        int end = offset + length;
+        if (reflected)
+        {
+            for (int i = offset; i < end; i++)
+            {
+                crc ^= chunk.get(i) & 0xFF;
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+                crc = t[(int) crc & 0xF] ^ (crc >>> 4);
+            }
+            return crc;
+        }
+        for (int i = offset; i < end; i++)
+        {
+            crc ^= ((long) chunk.get(i)) << 56;
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+            crc = t[(int) (crc >>> 60)] ^ (crc << 4);
+        }
+        return crc >>> shift;
+    }
+}
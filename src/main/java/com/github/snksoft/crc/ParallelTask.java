@@ -0,0 +1,51 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.RecursiveTask;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Fork-join task computing CRC register of a part of a buffer starting from a zero register.
+ * Parts larger than threshold are split in halves, processed in parallel and merged with
+ * {@link CRC#shift(long, long)}: register of A||B is register of A shifted by length of B xor register of B.
+ */
+final class ParallelTask extends RecursiveTask<Long>
+{
+    private static final long serialVersionUID = 1L;
+
+    private final CRC crc;
+    private final ByteBuffer data;
+    private final int offset;
+    private final int length;
+    private final int threshold;
+
+    ParallelTask(CRC crc, ByteBuffer data, int offset, int length, int threshold)
+    {
+        this.crc = crc;
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected Long compute()
+    {
+        if (length <= threshold)
+        {
+            // JDK implementations read a buffer through its position and limit, which tasks must not share
+            return crc.update(0, crc.isIntrinsic() && !data.hasArray() ? data.duplicate() : data, offset, length);
+        }
+
+        int half = length >>> 1;
+        ParallelTask left = new ParallelTask(crc, data, offset, half, threshold);
+        ParallelTask right = new ParallelTask(crc, data, offset + half, length - half, threshold);
+        left.fork();
+        long rightRegister = right.compute();
+        long leftRegister = left.join();
+        return crc.shift(leftRegister, length - half) ^ rightRegister;
+    }
+}
@@ -0,0 +1,138 @@
+package com.github.snksoft.crc;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Arithmetic modulo the CRC polynomial, used to compute effect of long runs of zero bytes on CRC register
+ * in logarithmic time. This is what makes combining CRCs of separately processed pieces of data possible.
+ * <p>
+ * Feeding a zero bit into the register multiplies register's polynomial by x (modulo the CRC polynomial),
+ * so feeding n zero bytes multiplies it by x<sup>8n</sup>. Powers x<sup>8*2<sup>k</sup></sup> are computed once
+ * and any x<sup>8n</sup> is assembled from them with at most 64 multiplications. The last power computed is
+ * remembered as well, so repeated shifts by the same number of bytes (e.g. fixed size blocks) cost
+ * a single multiplication.
+ * <p>
+ * Instances are immutable (the cache of the last power is replaced atomically) and safe for concurrent use.
+ */
+final class Polynomial
+{
+    private final int width;
+    private final long polynomial;
+    private final boolean reflected;
+    private final long topBit;
+    private final long mask;
+    private final long[] powers; // powers[k] = x^(8*2^k) mod P
+
+    private volatile Power last = new Power(0, 1);
+
+    private static final class Power
+    {
+        final long bytes;
+        final long value;
+
+        Power(long bytes, long value)
+        {
+            this.bytes = bytes;
+            this.value = value;
+        }
+    }
+
+    /**
+     * @param width width of the CRC expressed in bits
+     * @param polynomial CRC polynomial (without the leading term)
+     * @param reflected whether registers this instance works with are reflected
+     */
+    Polynomial(int width, long polynomial, boolean reflected)
+    {
+        this.width = width;
+        this.reflected = reflected;
+        this.topBit = 1L << (width - 1);
+        this.mask = (topBit << 1) - 1;
+        this.polynomial = polynomial & mask;
+        this.powers = new long[64];
+
+        long x8 = 1;
+        for (int i = 0; i < 8; i++)
+        {
+            x8 = multiplyByX(x8);
+        }
+        powers[0] = x8;
+        for (int k = 1; k < powers.length; k++)
+        {
+            powers[k] = multiply(powers[k - 1], powers[k - 1]);
+        }
+    }
+
+    /**
+     * Returns the register after feeding specified number of zero bytes into it.
+     * @param register CRC register in the same representation as CRC intermediate value
+     * @param bytes number of zero bytes
+     * @return updated register; bits above CRC width are cleared
+     */
+    long shift(long register, long bytes)
+    {
+        if (bytes == 0)
+        {
+            return register & mask;
+        }
+        long value = reflected ? reflect(register & mask) : register & mask;
+        value = multiply(value, powerOfX(bytes));
+        return reflected ? reflect(value) : value;
+    }
+
+    /**
+     * Returns x<sup>8n</sup> modulo CRC polynomial, with x<sup>0</sup> having value 1.
+     * @param bytes n, must not be negative
+     */
+    long powerOfX(long bytes)
+    {
+        Power cached = last;
+        if (cached.bytes == bytes)
+        {
+            return cached.value;
+        }
+
+        long result = 1;
+        long n = bytes;
+        for (int k = 0; n != 0; k++, n >>>= 1)
+        {
+            if ((n & 1) != 0)
+            {
+                result = multiply(result, powers[k]);
+            }
+        }
+        last = new Power(bytes, result);
+        return result;
+    }
+
+    /**
+     * Multiplies two polynomials modulo CRC polynomial. Values are not reflected:
+     * bit i holds coefficient of x<sup>i</sup>.
+     */
+    long multiply(long a, long b)
+    {
+        long product = 0;
+        for (long bit = topBit; bit != 0; bit >>>= 1)
+        {
+            product = multiplyByX(product);
+            if ((a & bit) != 0)
+            {
+                product ^= b;
+            }
+        }
+        return product;
+    }
+
+    private long multiplyByX(long value)
+    {
+        long shifted = (value << 1) & mask;
+        return (value & topBit) != 0 ? shifted ^ polynomial : shifted;
+    }
+
+    private long reflect(long value)
+    {
+        return Long.reverse(value) >>> (64 - width);
+    }
+}
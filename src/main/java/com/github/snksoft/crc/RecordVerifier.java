@@ -0,0 +1,316 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ RecordVerifier checks CRCs of records in log segments, where each record is a header starting with the payload length,
+ the payload and the CRC of the payload (and optionally of the header), one record right after another:
+<pre>
+    [length, other header fields][payload][CRC]
+</pre>
+When the CRC is stored in the byte order matching the bit order of the algorithm (little-endian for reflected algorithms,
+big-endian for others), CRC register after feeding both the data and its CRC is the same for all correct records.
+This value, the residue, is calculated once, so a record is checked with a single pass over it and one comparison,
+without reading the stored CRC or finishing the calculated one. Other layouts are checked by comparing CRCs.
+
+<p>
+Segments are walked without allocating anything, so verifying a segment costs only the CRC calculation itself.
+<pre>
+{@code
+    // 4 bytes big-endian length, payload, CRC-32C stored little-endian, header not covered
+    RecordVerifier verifier = new RecordVerifier(new CRC(CRC.Parameters.CRC32C),
+            new RecordVerifier.Layout(4, ByteOrder.BIG_ENDIAN, 4, ByteOrder.LITTLE_ENDIAN, false));
+    int bad = verifier.firstBadRecord(segment, 0, segment.limit());
+    if (bad >= 0) {
+        truncate(bad);
+    }
+}
+</pre>
+ * */
+public final class RecordVerifier
+{
+    private static final long INCOMPLETE = -1;     // record does not fit into the data, or its length is invalid
+    private static final long BAD = 1L << 32;      // flag of a record with wrong CRC; lower bits hold its end
+
+    /**
+     * Layout of records. The length field comes first in the header and holds the number of payload bytes.
+     * The CRC field follows the payload and takes as many bytes as the CRC needs.
+     */
+    public static final class Layout
+    {
+        private final int lengthSize;
+        private final ByteOrder lengthOrder;
+        private final int headerSize;
+        private final ByteOrder crcOrder;
+        private final boolean headerCovered;
+
+        /**
+         * Creates a layout.
+         * @param lengthSize size of the length field in bytes, 1 to 4
+         * @param lengthOrder byte order of the length field
+         * @param headerSize size of the header in bytes, including the length field
+         * @param crcOrder byte order of the CRC field
+         * @param headerCovered whether the CRC covers the header as well as the payload
+         * @throws IllegalArgumentException if a size is invalid
+         */
+        public Layout(int lengthSize, ByteOrder lengthOrder, int headerSize, ByteOrder crcOrder, boolean headerCovered)
+        {
+            if (lengthSize < 1 || lengthSize > 4 || headerSize < lengthSize)
+                throw new IllegalArgumentException("Invalid header: length field of " + lengthSize + " bytes, header of " + headerSize + " bytes");
+
+            this.lengthSize = lengthSize;
+            this.lengthOrder = Objects.requireNonNull(lengthOrder);
+            this.headerSize = headerSize;
+            this.crcOrder = Objects.requireNonNull(crcOrder);
+            this.headerCovered = headerCovered;
+        }
+
+        /**
+         * Returns size of the length field.
+         * @return size in bytes
+         */
+        public int getLengthSize()
+        {
+            return lengthSize;
+        }
+
+        /**
+         * Returns byte order of the length field.
+         * @return byte order
+         */
+        public ByteOrder getLengthOrder()
+        {
+            return lengthOrder;
+        }
+
+        /**
+         * Returns size of the header, including the length field.
+         * @return size in bytes
+         */
+        public int getHeaderSize()
+        {
+            return headerSize;
+        }
+
+        /**
+         * Returns byte order of the CRC field.
+         * @return byte order
+         */
+        public ByteOrder getCrcOrder()
+        {
+            return crcOrder;
+        }
+
+        /**
+         * Returns whether the CRC covers the header.
+         * @return true if the header is covered
+         */
+        public boolean isHeaderCovered()
+        {
+            return headerCovered;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Layout{lengthSize=" + lengthSize + ", lengthOrder=" + lengthOrder + ", headerSize=" + headerSize
+                    + ", crcOrder=" + crcOrder + ", headerCovered=" + headerCovered + '}';
+        }
+    }
+
+    private final CRC crc;
+    private final Layout layout;
+    private final int crcSize;
+    private final long mask;
+    private final boolean useResidue;
+    private final long residue;
+
+    /**
+     * Creates a verifier.
+     * @param crc processor of the algorithm records are protected with
+     * @param layout layout of records
+     */
+    public RecordVerifier(CRC crc, Layout layout)
+    {
+        CRC.Parameters crcParams = crc.getParameters();
+        int width = crcParams.getWidth();
+        this.crc = crc;
+        this.layout = layout;
+        this.crcSize = (width + 7) / 8;
+        this.mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+
+        // the register after a CRC is fed in is a constant only if the CRC is whole bytes, fed in the order bits are
+        ByteOrder natural = crcParams.isReflectIn() ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+        this.useResidue = width % 8 == 0 && crcParams.isReflectIn() == crcParams.isReflectOut()
+                && (crcSize == 1 || layout.crcOrder == natural);
+
+        // residue does not depend on the data, so it is that of empty data
+        byte[] stored = new byte[crcSize];
+        store(crc.finalCRC(crc.init()), stored, layout.crcOrder);
+        this.residue = crc.update(crc.init(), stored, 0, crcSize) & mask;
+    }
+
+    /**
+     * Returns processor of the algorithm.
+     * @return CRC processor
+     */
+    public CRC getCRC()
+    {
+        return crc;
+    }
+
+    /**
+     * Returns layout of records.
+     * @return layout
+     */
+    public Layout getLayout()
+    {
+        return layout;
+    }
+
+    /**
+     * Returns size of the smallest record, i.e. one with empty payload.
+     * @return size in bytes
+     */
+    public int minRecordSize()
+    {
+        return layout.headerSize + crcSize;
+    }
+
+    /**
+     * Finds the first record that is corrupted or incomplete. Buffer's position, limit and byte order are not changed.
+     * @param segment buffer holding records, e.g. a mapped file
+     * @param offset is 0-based absolute index of the first record
+     * @param length indicates number of bytes holding records
+     * @return absolute index of the first record with wrong CRC, a length exceeding the data, or not fitting
+     *         into the data; -1 if all records are correct
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public int firstBadRecord(ByteBuffer segment, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, segment.limit());
+
+        int end = offset + length;
+        int pos = offset;
+        while (pos < end)
+        {
+            long result = check(segment, pos, end);
+            if (result < 0 || (result & BAD) != 0)
+            {
+                return pos;
+            }
+            pos = (int) result;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks all records, marking the failed ones in a bitmap: bit {@code i % 64} of {@code failures[i / 64]}
+     * is set if record i (counting from 0) has wrong CRC or is incomplete. Records with wrong CRC do not stop the walk,
+     * since the next record is found by the length, but an incomplete record does, as nothing can be found after it.
+     * At most {@code failures.length * 64} records are checked. Buffer's position, limit and byte order are not changed.
+     * @param segment buffer holding records, e.g. a mapped file
+     * @param offset is 0-based absolute index of the first record
+     * @param length indicates number of bytes holding records
+     * @param failures bitmap receiving failures; cleared first. Enough for all records if it holds
+     *                 {@code length / minRecordSize()} bits
+     * @return number of records checked, including an incomplete one
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public int verify(ByteBuffer segment, int offset, int length, long[] failures)
+    {
+        Objects.checkFromIndexSize(offset, length, segment.limit());
+        Arrays.fill(failures, 0);
+
+        long capacity = (long) failures.length * 64;
+        int end = offset + length;
+        int pos = offset;
+        int records = 0;
+        while (pos < end && records < capacity)
+        {
+            long result = check(segment, pos, end);
+            if (result < 0 || (result & BAD) != 0)
+            {
+                failures[records >>> 6] |= 1L << records;
+            }
+            records++;
+            if (result < 0)
+            {
+                break;
+            }
+            pos = (int) result;
+        }
+        return records;
+    }
+
+    /**
+     * Checks a record.
+     * @return index just past the record, with {@link #BAD} set if its CRC is wrong, or {@link #INCOMPLETE}
+     */
+    private long check(ByteBuffer segment, int pos, int end)
+    {
+        Layout l = layout;
+        if (end - pos < l.headerSize + crcSize)
+        {
+            return INCOMPLETE;
+        }
+        long payload = load(segment, pos, l.lengthSize, l.lengthOrder);
+        if (payload > end - pos - l.headerSize - crcSize)
+        {
+            return INCOMPLETE;
+        }
+
+        int covered = l.headerCovered ? pos : pos + l.headerSize;
+        int crcPos = pos + l.headerSize + (int) payload;
+        int next = crcPos + crcSize;
+        boolean correct;
+        if (useResidue)
+        {
+            long register = crc.update(crc.init(), segment, covered, next - covered);
+            correct = ((register & mask) == residue);
+        }
+        else
+        {
+            long calculated = crc.finalCRC(crc.update(crc.init(), segment, covered, crcPos - covered));
+            correct = (load(segment, crcPos, crcSize, l.crcOrder) == calculated);
+        }
+        return correct ? next : next | BAD;
+    }
+
+    /** Reads an unsigned value byte by byte, so that buffer's own byte order does not matter */
+    private static long load(ByteBuffer segment, int pos, int size, ByteOrder order)
+    {
+        long value = 0;
+        if (order == ByteOrder.BIG_ENDIAN)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                value = (value << 8) | (segment.get(pos + i) & 0xFF);
+            }
+        }
+        else
+        {
+            for (int i = size - 1; i >= 0; i--)
+            {
+                value = (value << 8) | (segment.get(pos + i) & 0xFF);
+            }
+        }
+        return value;
+    }
+
+    private static void store(long value, byte[] bytes, ByteOrder order)
+    {
+        for (int i = 0; i < bytes.length; i++)
+        {
+            int shift = 8 * ((order == ByteOrder.BIG_ENDIAN) ? bytes.length - 1 - i : i);
+            bytes[i] = (byte) (value >>> shift);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.snksoft.crc;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ RollingCRC calculates CRC of a window of fixed size sliding over data, at a constant cost per byte whatever
+ the window size is. This makes CRC usable as a rolling hash, e.g. for content-defined chunking (see {@link ChunkScanner}).
+
+<p>
+Sliding the window by a byte feeds the incoming byte into the register as usual and cancels the byte leaving
+the window with a single lookup: the effect of a byte on the register after passing through the whole window
+does not depend on anything but the byte, so it is precomputed for all 256 values when the instance is created.
+<pre>
+{@code
+    RollingCRC rolling = new RollingCRC(CRC.Parameters.CRC32, 48);
+    for (byte b : data) {
+        rolling.update(b);
+        long crc = rolling.getValue(); // CRC of the last 48 bytes
+    }
+}
+</pre>
+
+<p>
+Initially (and after {@link #reset()}) the window is filled with zero bytes, so {@link #getValue()} always
+returns CRC of exactly the window size of bytes, including zero bytes preceding the data if not enough has been fed.
+Instances keep the window contents and must not be used by several threads at once.
+ * */
+public final class RollingCRC
+{
+    private final CRC crc;
+    private final int window;
+    private final boolean reflected;
+    final int shift;           // 64 - width for MSB first algorithms (register is left-aligned), 0 for reflected ones
+    final long[] table;        // regular table, in the same representation as the register
+    final long[] outTable;     // outTable[b]: register after feeding byte b and window zero bytes into a zero register
+    private final long initShifted;   // initial value shifted through the whole window
+
+    final byte[] history;      // the window, as a ring buffer
+    int head;                  // index of the oldest byte in history
+    long register;             // register of the window started from zero, in loop representation
+
+    /**
+     * Creates a rolling CRC using tables of specified processor.
+     * @param crc CRC processor defining the algorithm
+     * @param window window size in bytes
+     * @throws IllegalArgumentException if window size is not positive
+     */
+    public RollingCRC(CRC crc, int window)
+    {
+        if (window <= 0)
+            throw new IllegalArgumentException("Window size must be positive: " + window);
+
+        CRC.Parameters crcParams = crc.getParameters();
+        TableCache.Entry shared = TableCache.get(crcParams);
+        Polynomial polynomial = shared.polynomial();
+
+        this.crc = crc;
+        this.window = window;
+        this.reflected = crcParams.isReflectIn();
+        this.shift = reflected ? 0 : 64 - crcParams.getWidth();
+        this.table = new long[256];
+        this.outTable = new long[256];
+        for (int i = 0; i < 256; i++)
+        {
+            table[i] = shared.crctable[i] << shift;
+        }
+        // shifting is linear, so entries for single bits are enough to fill the table
+        for (int bit = 0; bit < 8; bit++)
+        {
+            outTable[1 << bit] = polynomial.shift(shared.crctable[1 << bit], window) << shift;
+        }
+        for (int b = 1; b < 256; b++)
+        {
+            outTable[b] = outTable[b & (b - 1)] ^ outTable[b & -b];
+        }
+        this.initShifted = crc.shift(crc.init(), window);
+        this.history = new byte[window];
+    }
+
+    /**
+     * Creates a rolling CRC for specified parameters.
+     * @param crcParams CRC algorithm parameters
+     * @param window window size in bytes
+     * @throws IllegalArgumentException if window size is not positive
+     */
+    public RollingCRC(CRC.Parameters crcParams, int window)
+    {
+        this(new CRC(crcParams, 1), window);
+    }
+
+    /**
+     * Returns window size in bytes.
+     * @return window size
+     */
+    public int getWindow()
+    {
+        return window;
+    }
+
+    /**
+     * Fills the window with zero bytes, as it is initially.
+     */
+    public void reset()
+    {
+        Arrays.fill(history, (byte) 0);
+        head = 0;
+        register = 0;
+    }
+
+    /**
+     * Slides the window by one byte.
+     * @param b byte entering the window
+     */
+    public void update(byte b)
+    {
+        byte out = history[head];
+        history[head] = b;
+        if (++head == window)
+        {
+            head = 0;
+        }
+        register = roll(register, out, b);
+    }
+
+    /**
+     * Slides the window over a part of a byte array.
+     * @param data data entering the window
+     * @param offset is 0-based offset of the data in the array supplied
+     * @param length indicates number of bytes
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     */
+    public void update(byte[] data, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        for (int i = offset; i < offset + length; i++)
+        {
+            update(data[i]);
+        }
+    }
+
+    /**
+     * Slides the window over a part of a ByteBuffer. Buffer's position and limit are not changed.
+     * @param data data entering the window
+     * @param offset is 0-based absolute index of the first byte
+     * @param length indicates number of bytes
+     * @throws IndexOutOfBoundsException if the range is not within buffer's limit
+     */
+    public void update(ByteBuffer data, int offset, int length)
+    {
+        Objects.checkFromIndexSize(offset, length, data.limit());
+        for (int i = offset; i < offset + length; i++)
+        {
+            update(data.get(i));
+        }
+    }
+
+    /**
+     * Returns CRC of the bytes currently in the window.
+     * @return CRC of the window
+     */
+    public long getValue()
+    {
+        return crc.finalCRC(initShifted ^ (register >>> shift));
+    }
+
+    /**
+     * Returns register after sliding the window by one byte.
+     */
+    long roll(long register, byte out, byte in)
+    {
+        if (reflected)
+        {
+            return table[((int) register ^ in) & 0xFF] ^ (register >>> 8) ^ outTable[out & 0xFF];
+        }
+        return table[((int) (register >>> 56) ^ in) & 0xFF] ^ (register << 8) ^ outTable[out & 0xFF];
+    }
+
+    boolean isReflected()
+    {
+        return reflected;
+    }
+
+    /**
+     * Converts condition <code>(getValue() &amp; mask) == target</code> into an equivalent condition
+     * <code>(register &amp; result[0]) == result[1]</code> on the register, so that it can be checked
+     * without calculating CRC for every position.
+     */
+    long[] registerCondition(long mask, long target)
+    {
+        CRC.Parameters crcParams = crc.getParameters();
+        int width = crcParams.getWidth();
+        long crcMask = ((width >= 64) ? 0 : (1L << width)) - 1;
+        mask &= crcMask;
+        long value = (target ^ crcParams.getFinalXor()) & mask;
+        if (crcParams.isReflectIn() != crcParams.isReflectOut())
+        {
+            mask = Long.reverse(mask) >>> (64 - width);
+            value = Long.reverse(value) >>> (64 - width);
+        }
+        value ^= initShifted & mask;
+        return new long[] { mask << shift, value << shift };
+    }
+}
@@ -0,0 +1,219 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Table driven engine for CRCs up to 16 bits wide. It works exactly like {@link LongSlicingEngine}, but keeps
+ * tables in <code>short</code> arrays (a quarter of the footprint of <code>long</code> ones) and does all
+ * arithmetic on <code>int</code>. Table values are sign-extended when loaded, so results are masked to 16 bits.
+ * <p>
+ * Non-reflected (MSB first) algorithms are processed with the register left-aligned in 16 bits.
+ */
+final class ShortSlicingEngine extends Engine
+{
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle BE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final boolean reflected;
+    private final int shift;        // 16 - width; used to left-align register of MSB first algorithms
+    private final int slices;       // 1, 8 or 16
+    private final short[][] tables;
+
+    /**
+     * Builds slicing tables from a regular 256 entries table.
+     * @param crctable table where entry i is the CRC register after feeding byte i into a zero register
+     * @param width width of the CRC expressed in bits, at most 16
+     * @param reflected whether the algorithm has reflected input
+     * @param slices number of tables to build; must be 1, 8 or 16
+     */
+    ShortSlicingEngine(long[] crctable, int width, boolean reflected, int slices)
+    {
+        if (slices != 1 && slices != 8 && slices != 16)
+            throw new IllegalArgumentException("Unsupported number of tables: " + slices);
+
+        this.reflected = reflected;
+        this.shift = 16 - width;
+        this.slices = slices;
+        this.tables = new short[slices][256];
+
+        short[] t0 = tables[0];
+        for (int i = 0; i < 256; i++)
+        {
+            t0[i] = (short) (reflected ? crctable[i] : crctable[i] << shift);
+        }
+        for (int k = 1; k < slices; k++)
+        {
+            short[] prev = tables[k - 1];
+            short[] cur = tables[k];
+            for (int i = 0; i < 256; i++)
+            {
+                int v = prev[i] & 0xFFFF;
+                cur[i] = (short) (reflected ? (v >>> 8) ^ t0[v & 0xFF] : (v << 8) ^ t0[v >>> 8]);
+            }
+        }
+    }
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        return reflected ? updateReflected((int) curValue & 0xFFFF, chunk, offset, length)
+                         : updateMsbFirst((int) (curValue << shift) & 0xFFFF, chunk, offset, length) >>> shift;
+    }
+
+    private int updateReflected(int crc, byte[] chunk, int offset, int length)
+    {
+        short[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices == 16)
+        {
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            short[] t8 = t[8], t9 = t[9], t10 = t[10], t11 = t[11], t12 = t[12], t13 = t[13], t14 = t[14], t15 = t[15];
+            for (; end - i >= 16; i += 16)
+            {
+                long w0 = (long) LE_LONG.get(chunk, i);
+                long w1 = (long) LE_LONG.get(chunk, i + 8);
+                int a = crc ^ (int) w0, b = (int) (w0 >>> 32), c = (int) w1, d = (int) (w1 >>> 32);
+                crc = (t15[a & 0xFF] ^ t14[(a >>> 8) & 0xFF] ^ t13[(a >>> 16) & 0xFF] ^ t12[a >>> 24]
+                     ^ t11[b & 0xFF] ^ t10[(b >>> 8) & 0xFF] ^ t9[(b >>> 16) & 0xFF] ^ t8[b >>> 24]
+                     ^ t7[c & 0xFF] ^ t6[(c >>> 8) & 0xFF] ^ t5[(c >>> 16) & 0xFF] ^ t4[c >>> 24]
+                     ^ t3[d & 0xFF] ^ t2[(d >>> 8) & 0xFF] ^ t1[(d >>> 16) & 0xFF] ^ t0[d >>> 24]) & 0xFFFF;
+            }
+        }
+        if (slices >= 8)
+        {
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long w = (long) LE_LONG.get(chunk, i);
+                int a = crc ^ (int) w, b = (int) (w >>> 32);
+                crc = (t7[a & 0xFF] ^ t6[(a >>> 8) & 0xFF] ^ t5[(a >>> 16) & 0xFF] ^ t4[a >>> 24]
+                     ^ t3[b & 0xFF] ^ t2[(b >>> 8) & 0xFF] ^ t1[(b >>> 16) & 0xFF] ^ t0[b >>> 24]) & 0xFFFF;
+            }
+        }
+
+        short[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = (t0[(crc ^ chunk[i]) & 0xFF] & 0xFFFF) ^ (crc >>> 8);
+        }
+        return crc;
+    }
+
+    private int updateMsbFirst(int crc, byte[] chunk, int offset, int length)
+    {
+        short[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices == 16)
+        {
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            short[] t8 = t[8], t9 = t[9], t10 = t[10], t11 = t[11], t12 = t[12], t13 = t[13], t14 = t[14], t15 = t[15];
+            for (; end - i >= 16; i += 16)
+            {
+                long w0 = (long) BE_LONG.get(chunk, i);
+                long w1 = (long) BE_LONG.get(chunk, i + 8);
+                int a = (int) (w0 >>> 32), b = (int) w0, c = (int) (w1 >>> 32), d = (int) w1;
+                int x = crc ^ (a >>> 16);
+                crc = (t15[x >>> 8] ^ t14[x & 0xFF] ^ t13[(a >>> 8) & 0xFF] ^ t12[a & 0xFF]
+                     ^ t11[b >>> 24] ^ t10[(b >>> 16) & 0xFF] ^ t9[(b >>> 8) & 0xFF] ^ t8[b & 0xFF]
+                     ^ t7[c >>> 24] ^ t6[(c >>> 16) & 0xFF] ^ t5[(c >>> 8) & 0xFF] ^ t4[c & 0xFF]
+                     ^ t3[d >>> 24] ^ t2[(d >>> 16) & 0xFF] ^ t1[(d >>> 8) & 0xFF] ^ t0[d & 0xFF]) & 0xFFFF;
+            }
+        }
+        if (slices >= 8)
+        {
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long w = (long) BE_LONG.get(chunk, i);
+                int a = (int) (w >>> 32), b = (int) w;
+                int x = crc ^ (a >>> 16);
+                crc = (t7[x >>> 8] ^ t6[x & 0xFF] ^ t5[(a >>> 8) & 0xFF] ^ t4[a & 0xFF]
+                     ^ t3[b >>> 24] ^ t2[(b >>> 16) & 0xFF] ^ t1[(b >>> 8) & 0xFF] ^ t0[b & 0xFF]) & 0xFFFF;
+            }
+        }
+
+        short[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = (t0[((crc >>> 8) ^ chunk[i]) & 0xFF] ^ (crc << 8)) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        return reflected ? updateReflected((int) curValue & 0xFFFF, chunk, offset, length)
+                         : updateMsbFirst((int) (curValue << shift) & 0xFFFF, chunk, offset, length) >>> shift;
+    }
+
+    private int updateReflected(int crc, ByteBuffer chunk, int offset, int length)
+    {
+        short[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices >= 8)
+        {
+            boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long w = chunk.getLong(i);
+                if (swap)
+                    w = Long.reverseBytes(w);
+                int a = crc ^ (int) w, b = (int) (w >>> 32);
+                crc = (t7[a & 0xFF] ^ t6[(a >>> 8) & 0xFF] ^ t5[(a >>> 16) & 0xFF] ^ t4[a >>> 24]
+                     ^ t3[b & 0xFF] ^ t2[(b >>> 8) & 0xFF] ^ t1[(b >>> 16) & 0xFF] ^ t0[b >>> 24]) & 0xFFFF;
+            }
+        }
+
+        short[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = (t0[(crc ^ chunk.get(i)) & 0xFF] & 0xFFFF) ^ (crc >>> 8);
+        }
+        return crc;
+    }
+
+    private int updateMsbFirst(int crc, ByteBuffer chunk, int offset, int length)
+    {
+        short[][] t = tables;
+        int i = offset;
+        int end = offset + length;
+
+        if (slices >= 8)
+        {
+            boolean swap = chunk.order() != ByteOrder.BIG_ENDIAN;
+            short[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+            for (; end - i >= 8; i += 8)
+            {
+                long w = chunk.getLong(i);
+                if (swap)
+                    w = Long.reverseBytes(w);
+                int a = (int) (w >>> 32), b = (int) w;
+                int x = crc ^ (a >>> 16);
+                crc = (t7[x >>> 8] ^ t6[x & 0xFF] ^ t5[(a >>> 8) & 0xFF] ^ t4[a & 0xFF]
+                     ^ t3[b >>> 24] ^ t2[(b >>> 16) & 0xFF] ^ t1[(b >>> 8) & 0xFF] ^ t0[b & 0xFF]) & 0xFFFF;
+            }
+        }
+
+        short[] t0 = t[0];
+        for (; i < end; i++)
+        {
+            crc = (t0[((crc >>> 8) ^ chunk.get(i)) & 0xFF] ^ (crc << 8)) & 0xFFFF;
+        }
+        return crc;
+    }
+}
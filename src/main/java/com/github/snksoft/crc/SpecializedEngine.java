@@ -0,0 +1,90 @@
+package com.github.snksoft.crc;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Template of engines specialised for a single algorithm. This class itself is never initialized:
+ * {@link EngineSpecializer} defines a copy of it under a new name for every algorithm, and the copy picks
+ * its configuration up when initialized. Since everything the loops depend on is held in static final fields,
+ * the JIT compiler treats shifts, reflection and table addresses as constants, and since every algorithm has
+ * its own class, it has its own profile and compiled code that no other algorithm makes polymorphic.
+ * <p>
+ * Registers of MSB first algorithms are left-aligned in 64 bits and kept byte-swapped, like in {@link InterleavedEngine},
+ * so the loop is the same for both bit orders and has no branches but the loop conditions.
+ * The class must not use lambdas or nested classes, which would not be copied along with it.
+ */
+final class SpecializedEngine extends Engine
+{
+    private static final VarHandle LE_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final EngineSpecializer.Shape SHAPE = EngineSpecializer.take(SpecializedEngine.class);
+    private static final boolean REFLECTED = SHAPE.reflected;
+    private static final int SHIFT = SHAPE.shift;
+    private static final long[] T0 = SHAPE.tables[0], T1 = SHAPE.tables[1], T2 = SHAPE.tables[2], T3 = SHAPE.tables[3];
+    private static final long[] T4 = SHAPE.tables[4], T5 = SHAPE.tables[5], T6 = SHAPE.tables[6], T7 = SHAPE.tables[7];
+    private static final long[] T8 = SHAPE.tables[8], T9 = SHAPE.tables[9], T10 = SHAPE.tables[10], T11 = SHAPE.tables[11];
+    private static final long[] T12 = SHAPE.tables[12], T13 = SHAPE.tables[13], T14 = SHAPE.tables[14], T15 = SHAPE.tables[15];
+
+    @Override
+    long update(long curValue, byte[] chunk, int offset, int length)
+    {
+        long crc = REFLECTED ? curValue : Long.reverseBytes(curValue << SHIFT);
+        int i = offset;
+        int end = offset + length;
+        for (; end - i >= 16; i += 16)
+        {
+            long x = crc ^ (long) LE_LONG.get(chunk, i);
+            long y = (long) LE_LONG.get(chunk, i + 8);
+            crc = slice16(x, y);
+        }
+        for (; i < end; i++)
+        {
+            crc = T0[((int) crc ^ chunk[i]) & 0xFF] ^ (crc >>> 8);
+        }
+        return REFLECTED ? crc : Long.reverseBytes(crc) >>> SHIFT;
+    }
+
+    @Override
+    long updateBuffer(long curValue, ByteBuffer chunk, int offset, int length)
+    {
+        boolean swap = chunk.order() != ByteOrder.LITTLE_ENDIAN;
+        long crc = REFLECTED ? curValue : Long.reverseBytes(curValue << SHIFT);
+        int i = offset;
+        int end = offset + length;
+        for (; end - i >= 16; i += 16)
+        {
+            long x = chunk.getLong(i);
+            long y = chunk.getLong(i + 8);
+            if (swap)
+            {
+                x = Long.reverseBytes(x);
+                y = Long.reverseBytes(y);
+            }
+            crc = slice16(crc ^ x, y);
+        }
+        for (; i < end; i++)
+        {
+            crc = T0[((int) crc ^ chunk.get(i)) & 0xFF] ^ (crc >>> 8);
+        }
+        return REFLECTED ? crc : Long.reverseBytes(crc) >>> SHIFT;
+    }
+
+    private static long slice16(long x, long y)
+    {
+        return T15[(int) x & 0xFF] ^ T14[(int) (x >>> 8) & 0xFF]
+             ^ T13[(int) (x >>> 16) & 0xFF] ^ T12[(int) (x >>> 24) & 0xFF]
+             ^ T11[(int) (x >>> 32) & 0xFF] ^ T10[(int) (x >>> 40) & 0xFF]
+             ^ T9[(int) (x >>> 48) & 0xFF] ^ T8[(int) (x >>> 56)]
+             ^ T7[(int) y & 0xFF] ^ T6[(int) (y >>> 8) & 0xFF]
+             ^ T5[(int) (y >>> 16) & 0xFF] ^ T4[(int) (y >>> 24) & 0xFF]
+             ^ T3[(int) (y >>> 32) & 0xFF] ^ T2[(int) (y >>> 40) & 0xFF]
+             ^ T1[(int) (y >>> 48) & 0xFF] ^ T0[(int) (y >>> 56)];
+    }
+}
@@ -0,0 +1,288 @@
+package com.github.snksoft.crc;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ * Process-wide cache of lookup tables and everything else that depends only on CRC width, polynomial
+ * and input reflection. Parameter sets that differ only in initial value, final xor or output reflection
+ * share the same entry, and so do all {@link CRC} instances created for the same algorithm.
+ * <p>
+ * The cache holds at most {@link #MAX_ENTRIES} entries and evicts the least recently used one when full.
+ * Everything stored in an entry is immutable, so an evicted entry stays valid for processors still using it.
+ */
+final class TableCache
+{
+    static final int MAX_ENTRIES = 64;
+
+    private static final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, TableCache.Entry> eldest)
+        {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private TableCache()
+    {
+    }
+
+    /**
+     * Returns cache entry for parameters, creating it if necessary.
+     * @param crcParams CRC algorithm parameters
+     * @return the cache entry
+     */
+    static Entry get(CRC.Parameters crcParams)
+    {
+        Key key = key(crcParams);
+        synchronized (cache)
+        {
+            Entry entry = cache.get(key);
+            if (entry == null)
+            {
+                entry = new Entry(key);
+                cache.put(key, entry);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Returns cache entry for parameters if it exists, without building tables otherwise.
+     * @param crcParams CRC algorithm parameters
+     * @return the cache entry, or null
+     */
+    static Entry peek(CRC.Parameters crcParams)
+    {
+        Key key = key(crcParams);
+        synchronized (cache)
+        {
+            return cache.get(key);
+        }
+    }
+
+    private static Key key(CRC.Parameters crcParams)
+    {
+        int width = crcParams.getWidth();
+        long mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+        return new Key(width, crcParams.getPolynomial() & mask, crcParams.isReflectIn());
+    }
+
+    /** Width, polynomial and input reflection; also keys engines of {@link EngineSpecializer}, which outlive entries */
+    static final class Key
+    {
+        final int width;
+        final long polynomial;
+        final boolean reflectIn;
+
+        Key(int width, long polynomial, boolean reflectIn)
+        {
+            this.width = width;
+            this.polynomial = polynomial;
+            this.reflectIn = reflectIn;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Key))
+                return false;
+            Key other = (Key) o;
+            return width == other.width && polynomial == other.polynomial && reflectIn == other.reflectIn;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (Long.hashCode(polynomial) * 31 + width) * 31 + (reflectIn ? 1 : 0);
+        }
+    }
+
+    /**
+     * Tables and helpers for a particular width, polynomial and input reflection.
+     * Everything except the basic table is created on first use; races only result in extra instances being built.
+     */
+    static final class Entry
+    {
+        private final Key key;
+        /** Entry i is CRC register after feeding byte i into a zero register */
+        final long[] crctable;
+
+        private volatile Engine[] slicing = new Engine[17];
+        private volatile Polynomial polynomial;
+        private volatile InterleavedEngine interleaved;
+        private volatile IntrinsicEngine intrinsic;
+        private volatile Engine specialized;
+
+        private Entry(Key key)
+        {
+            this.key = key;
+            long start = CRCMetrics.ENABLED ? System.nanoTime() : 0;
+            this.crctable = buildTable(key.width, key.polynomial, key.reflectIn);
+            if (CRCMetrics.ENABLED)
+            {
+                built("table", start);
+            }
+        }
+
+        private void built(String kind, long startNanos)
+        {
+            CRCMetrics.tableBuilt(kind, key.width, key.polynomial, key.reflectIn, System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Returns slicing engine with specified number of tables. The narrowest table element type
+         * that can hold the register is used: <code>byte</code> up to 8 bits, <code>short</code> up to 16,
+         * <code>int</code> up to 32 and <code>long</code> for wider CRCs.
+         * @throws IllegalArgumentException if number of tables is not supported
+         */
+        Engine slicing(int tables)
+        {
+            if (tables != 1 && tables != 8 && tables != 16)
+                throw new IllegalArgumentException("Unsupported number of tables: " + tables);
+
+            Engine engine = slicing[tables];
+            if (engine == null)
+            {
+                long start = CRCMetrics.ENABLED ? System.nanoTime() : 0;
+                engine = newSlicingEngine(tables);
+                if (CRCMetrics.ENABLED)
+                {
+                    built("slicing-" + tables, start);
+                }
+                Engine[] updated = slicing.clone();
+                updated[tables] = engine;
+                slicing = updated;
+            }
+            return engine;
+        }
+
+        private Engine newSlicingEngine(int tables)
+        {
+            if (key.width <= 8)
+                return new ByteSlicingEngine(crctable, key.width, key.reflectIn, tables);
+            if (key.width <= 16)
+                return new ShortSlicingEngine(crctable, key.width, key.reflectIn, tables);
+            if (key.width <= 32)
+                return new IntSlicingEngine(crctable, key.width, key.reflectIn, tables);
+            return new LongSlicingEngine(crctable, key.width, key.reflectIn, tables);
+        }
+
+        /**
+         * Returns arithmetic modulo CRC polynomial working with registers of this entry.
+         */
+        Polynomial polynomial()
+        {
+            Polynomial p = polynomial;
+            if (p == null)
+            {
+                p = new Polynomial(key.width, key.polynomial, key.reflectIn);
+                polynomial = p;
+            }
+            return p;
+        }
+
+        /**
+         * Returns engine processing several streams of data side by side.
+         */
+        InterleavedEngine interleaved()
+        {
+            InterleavedEngine engine = interleaved;
+            if (engine == null)
+            {
+                Engine fallback = slicing(8);
+                long start = CRCMetrics.ENABLED ? System.nanoTime() : 0;
+                engine = new InterleavedEngine(crctable, key.width, key.reflectIn, polynomial(), fallback);
+                if (CRCMetrics.ENABLED)
+                {
+                    built("interleaved", start);
+                }
+                interleaved = engine;
+            }
+            return engine;
+        }
+
+        /**
+         * Returns engine of a class defined for this width, polynomial and input reflection (see {@link EngineSpecializer}),
+         * or slicing-by-16 engine if no more classes can be defined. The class is kept by the specializer, so an entry
+         * evicted and built again gets the same one.
+         */
+        Engine specialized()
+        {
+            Engine engine = specialized;
+            if (engine == null)
+            {
+                engine = EngineSpecializer.specialize(key, crctable);
+                if (engine == null)
+                {
+                    engine = slicing(16);
+                }
+                specialized = engine;
+            }
+            return engine;
+        }
+
+        /**
+         * Returns engine delegating to JDK implementation, or null if parameters are not supported.
+         * @param crcParams parameters this entry was obtained for
+         */
+        IntrinsicEngine intrinsic(CRC.Parameters crcParams)
+        {
+            IntrinsicEngine engine = intrinsic;
+            if (engine != null && IntrinsicEngine.supports(crcParams))
+            {
+                return engine;
+            }
+            engine = IntrinsicEngine.forParameters(crcParams, slicing(8));
+            if (engine != null)
+            {
+                intrinsic = engine;
+            }
+            return engine;
+        }
+    }
+
+    /**
+     * Builds the 256 entries table directly, a bit at a time for each entry. Reflected algorithms shift
+     * the register right using the reflected polynomial, others work on a register left-aligned in 64 bits,
+     * which works for all widths including the ones shorter than 8 bits.
+     */
+    static long[] buildTable(int width, long polynomial, boolean reflectIn)
+    {
+        long[] table = new long[256];
+        if (reflectIn)
+        {
+            long reflectedPoly = Long.reverse(polynomial) >>> (64 - width);
+            for (int i = 0; i < 256; i++)
+            {
+                long crc = i;
+                for (int bit = 0; bit < 8; bit++)
+                {
+                    crc = ((crc & 1) != 0) ? (crc >>> 1) ^ reflectedPoly : crc >>> 1;
+                }
+                table[i] = crc;
+            }
+        }
+        else
+        {
+            long alignedPoly = polynomial << (64 - width);
+            for (int i = 0; i < 256; i++)
+            {
+                long crc = ((long) i) << 56;
+                for (int bit = 0; bit < 8; bit++)
+                {
+                    crc = (crc < 0) ? (crc << 1) ^ alignedPoly : crc << 1;
+                }
+                table[i] = crc >>> (64 - width);
+            }
+        }
+        return table;
+    }
+}
@@ -1,3 +1,5 @@
 module com.github.snksoft.crc {
+    requires static jdk.jfr;
+
     exports com.github.snksoft.crc;
 }
@@ -0,0 +1,134 @@
+package com.github.snksoft.crc;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+// Copyright 2016, S&K Software Development Ltd.
+// Use of this source code is governed by a BSD-style
+// license that can be found in the LICENSE file.
+
+/**
+ SegmentCRC feeds {@link MemorySegment}s of the Foreign Function &amp; Memory API to {@link CRC} processors. Offsets and
+ lengths are <code>long</code>, so off-heap regions larger than 2GB (arena-allocated or mapped memory) are processed
+ in one call, without copying and without slicing them into ByteBuffers first.
+
+<p>
+Memory is read 8 bytes at a time with {@link ValueLayout#JAVA_LONG_UNALIGNED} and consumed with "slicing-by-8" tables,
+which are shared with {@link CRC#updateInterleaved(long, byte[], int, int)} and built on first use whatever number of tables
+the processor itself has. Processors delegating to a JDK implementation (see {@link CRC#CRC(CRC.Parameters)}) hand
+native memory and segments of byte arrays to it in pieces of up to 1GB instead, as it is faster anyway; segments of
+other arrays can not be viewed as ByteBuffers and go through the tables. Intermediate values are exactly the same
+as those of {@link CRC#update(long, byte[], int, int)}, so segments can be mixed with any other kinds of data.
+<pre>
+{@code
+    try (Arena arena = Arena.ofConfined()) {
+        MemorySegment region = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        long crc = SegmentCRC.calculateCRC(new CRC(CRC.Parameters.CRC64ECMA), region);
+    }
+}
+</pre>
+This class is only available when running on Java 22 or later.
+ * */
+public final class SegmentCRC
+{
+    private static final ValueLayout.OfLong LE_LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    /** Largest piece of memory handed to a JDK implementation as a ByteBuffer */
+    private static final long MAX_BUFFER = 1 << 30;
+
+    private SegmentCRC()
+    {
+    }
+
+    /**
+     * Feeds a whole memory segment, like {@link CRC#update(long, byte[], int, int)} does for an array.
+     * @param crc CRC processor
+     * @param curValue CRC intermediate value so far
+     * @param segment data to be processed
+     * @return updated intermediate value for this CRC
+     * @throws IllegalStateException if the segment is not alive or not accessible from the current thread
+     */
+    public static long update(CRC crc, long curValue, MemorySegment segment)
+    {
+        return update(crc, curValue, segment, 0, segment.byteSize());
+    }
+
+    /**
+     * Feeds a part of a memory segment, like {@link CRC#update(long, byte[], int, int)} does for an array.
+     * @param crc CRC processor
+     * @param curValue CRC intermediate value so far
+     * @param segment segment holding the data
+     * @param offset is 0-based offset of the data to be processed in the segment
+     * @param length indicates number of bytes to be processed
+     * @return updated intermediate value for this CRC
+     * @throws IndexOutOfBoundsException if the range is not within the segment
+     * @throws IllegalStateException if the segment is not alive or not accessible from the current thread
+     */
+    public static long update(CRC crc, long curValue, MemorySegment segment, long offset, long length)
+    {
+        Objects.checkFromIndexSize(offset, length, segment.byteSize());
+        // only native memory and byte arrays can be viewed as ByteBuffers; e.g. long[] segments go through tables
+        if (crc.isIntrinsic() && (segment.isNative() || segment.heapBase().orElse(null) instanceof byte[]))
+        {
+            for (long done = 0; done < length; )
+            {
+                int n = (int) Math.min(MAX_BUFFER, length - done);
+                curValue = crc.update(curValue, segment.asSlice(offset + done, n).asByteBuffer(), 0, n);
+                done += n;
+            }
+            return curValue;
+        }
+
+        // tables of the interleaved engine keep MSB first registers byte-swapped, so input is always read
+        // little-endian and both kinds of algorithms share the same loop
+        InterleavedEngine engine = TableCache.get(crc.getParameters()).interleaved();
+        long[][] t = engine.tables();
+        long[] t0 = t[0], t1 = t[1], t2 = t[2], t3 = t[3], t4 = t[4], t5 = t[5], t6 = t[6], t7 = t[7];
+        long value = engine.fromRegister(curValue);
+        long i = offset;
+        long end = offset + length;
+
+        for (; end - i >= 8; i += 8)
+        {
+            long x = value ^ segment.get(LE_LONG, i);
+            value = t7[(int) x & 0xFF] ^ t6[(int) (x >>> 8) & 0xFF]
+                  ^ t5[(int) (x >>> 16) & 0xFF] ^ t4[(int) (x >>> 24) & 0xFF]
+                  ^ t3[(int) (x >>> 32) & 0xFF] ^ t2[(int) (x >>> 40) & 0xFF]
+                  ^ t1[(int) (x >>> 48) & 0xFF] ^ t0[(int) (x >>> 56)];
+        }
+        for (; i < end; i++)
+        {
+            value = t0[((int) value ^ segment.get(ValueLayout.JAVA_BYTE, i)) & 0xFF] ^ (value >>> 8);
+        }
+        return engine.toRegister(value);
+    }
+
+    /**
+     * Calculates CRC of a whole memory segment.
+     * @param crc CRC processor
+     * @param segment data to calculate CRC on
+     * @return calculated CRC
+     * @throws IllegalStateException if the segment is not alive or not accessible from the current thread
+     */
+    public static long calculateCRC(CRC crc, MemorySegment segment)
+    {
+        return crc.finalCRC(update(crc, crc.init(), segment, 0, segment.byteSize()));
+    }
+
+    /**
+     * Calculates CRC of a part of a memory segment.
+     * @param crc CRC processor
+     * @param segment segment holding the data
+     * @param offset is 0-based offset of the data to be processed in the segment
+     * @param length indicates number of bytes to be processed
+     * @return calculated CRC
+     * @throws IndexOutOfBoundsException if the range is not within the segment
+     * @throws IllegalStateException if the segment is not alive or not accessible from the current thread
+     */
+    public static long calculateCRC(CRC crc, MemorySegment segment, long offset, long length)
+    {
+        return crc.finalCRC(update(crc, crc.init(), segment, offset, length));
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveCRCTests {
+    private static final CRC.Parameters[] params = {
+        CRC.Parameters.CRC32,
+        CRC.Parameters.CCITT,
+        CRC.Parameters.CRC64ECMA,
+        new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+        new CRC.Parameters(7, 0x09, 0x0, true, true, 0x0),
+        new CRC.Parameters(16, 0x8005, 0xFFFF, true, false, 0x1234),
+        new CRC.Parameters(24, 0x864CFB, 0xB704CE, false, true, 0x0),
+        new CRC.Parameters(40, 0x0004820009L, 0x0, false, false, 0xFFFFFFFFFFL),
+    };
+
+    private static final AdaptiveCRC.Thresholds[] thresholds = {
+        new AdaptiveCRC.Thresholds(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE), // always by nibble
+        new AdaptiveCRC.Thresholds(0, Integer.MAX_VALUE, Integer.MAX_VALUE),                 // always single table
+        new AdaptiveCRC.Thresholds(0, 0, Integer.MAX_VALUE),                                 // always slicing
+        new AdaptiveCRC.Thresholds(0, 0, 0),                                                 // always interleaved
+        new AdaptiveCRC.Thresholds(100, 20, 1500),
+    };
+
+    @Test
+    public void testMatchesCRC() {
+        byte[] data = new byte[5000];
+        new Random(1).nextBytes(data);
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            for (AdaptiveCRC.Thresholds t : thresholds) {
+                AdaptiveCRC adaptive = new AdaptiveCRC(crcParams, t);
+                assertEquals(crc.init(), adaptive.init());
+                for (int length : new int[] {0, 1, 7, 19, 64, 255, 1024, 3001, 5000}) {
+                    String message = crcParams + " " + t + " " + length;
+                    long expected = crc.calculateCRC(data, 0, length);
+                    assertEquals(expected, adaptive.calculateCRC(data, 0, length), message);
+                    assertEquals(expected, CRC.calculateCRC(crcParams, data, 0, length), message);
+
+                    ByteBuffer direct = ByteBuffer.allocateDirect(length);
+                    direct.put(data, 0, length).flip();
+                    assertEquals(expected, adaptive.calculateCRC(direct, 0, length), message);
+
+                    // chunks of different lengths go through different engines
+                    int half = length / 3;
+                    long value = adaptive.update(adaptive.init(), data, 0, half);
+                    value = adaptive.update(value, ByteBuffer.wrap(data), half, length - half);
+                    assertEquals(expected, adaptive.finalCRC(value), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testThresholds() {
+        AdaptiveCRC.Thresholds t = AdaptiveCRC.Thresholds.getDefault();
+        assertTrue(t.getSlicing() <= t.getInterleaved());
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveCRC.Thresholds(-1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveCRC.Thresholds(0, 100, 10));
+
+        AdaptiveCRC.Thresholds calibrated = AdaptiveCRC.Thresholds.calibrate(CRC.Parameters.XMODEM);
+        assertTrue(calibrated.getTable() >= 0);
+        assertTrue(calibrated.getSlicing() <= calibrated.getInterleaved());
+        assertEquals(0x31C3, new AdaptiveCRC(CRC.Parameters.XMODEM, calibrated).calculateCRC("123456789".getBytes()));
+    }
+}
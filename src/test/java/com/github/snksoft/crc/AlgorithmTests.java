@@ -0,0 +1,43 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlgorithmTests {
+    private static final byte[] checkData = "123456789".getBytes();
+
+    @Test
+    public void testCheckValues() {
+        for (Algorithm algorithm : Algorithm.values()) {
+            String message = algorithm.getName();
+            assertEquals(algorithm.getCheck(), CRC.calculateCRC(algorithm.getParameters(), checkData), message);
+            assertEquals(algorithm.getCheck(), algorithm.crc().calculateCRC(checkData), message);
+            assertSame(algorithm.crc(), algorithm.crc(), message);
+        }
+    }
+
+    @Test
+    public void testLookup() {
+        Set<String> names = new HashSet<>();
+        for (Algorithm algorithm : Algorithm.values()) {
+            assertSame(algorithm, Algorithm.forName(algorithm.getName()));
+            assertSame(algorithm, Algorithm.forName(algorithm.getName().toLowerCase()));
+            assertTrue(names.add(algorithm.getName()), algorithm.getName());
+            for (String alias : algorithm.getAliases()) {
+                assertSame(algorithm, Algorithm.forName(alias));
+                assertTrue(names.add(alias), alias);
+            }
+        }
+
+        assertSame(Algorithm.CRC_16_MODBUS, Algorithm.forName("MODBUS"));
+        assertSame(Algorithm.CRC_32_ISCSI, Algorithm.forName("crc-32c"));
+        assertEquals(CRC.Parameters.CRC32, Algorithm.forName("CRC-32").getParameters());
+        assertEquals(CRC.Parameters.CRC64ECMA, Algorithm.CRC_64_XZ.getParameters());
+        assertEquals(CRC.Parameters.CCITT, Algorithm.CRC_16_IBM_3740.getParameters());
+        assertThrows(IllegalArgumentException.class, () -> Algorithm.forName("CRC-99/UNKNOWN"));
+    }
+}
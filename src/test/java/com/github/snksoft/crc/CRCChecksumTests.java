@@ -0,0 +1,63 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CheckedInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CRCChecksumTests {
+    private static final byte[] checkData = "123456789".getBytes();
+
+    @Test
+    public void testUpdates() {
+        for (Algorithm algorithm : new Algorithm[] { Algorithm.CRC_5_USB, Algorithm.CRC_16_MODBUS,
+                Algorithm.CRC_32_ISO_HDLC, Algorithm.CRC_32_ISCSI, Algorithm.CRC_64_XZ }) {
+            CRCChecksum checksum = algorithm.checksum();
+            assertEquals(algorithm.crc().calculateCRC(new byte[0]), checksum.getValue());
+
+            checksum.update(checkData, 0, 2);
+            checksum.update(checkData[2]);
+            checksum.update(ByteBuffer.wrap(checkData, 3, 3));
+            ByteBuffer direct = ByteBuffer.allocateDirect(3);
+            direct.put(checkData, 6, 3).flip();
+            checksum.update(direct);
+            assertEquals(3, direct.position());
+            assertEquals(algorithm.getCheck(), checksum.getValue(), algorithm.getName());
+
+            checksum.reset();
+            checksum.update(checkData);
+            assertEquals(algorithm.getCheck(), checksum.getValue(), algorithm.getName());
+        }
+
+        assertThrows(IndexOutOfBoundsException.class, () -> new CRCChecksum(CRC.Parameters.CRC32).update(checkData, 5, 5));
+    }
+
+    @Test
+    public void testCopy() {
+        CRCChecksum prefix = new CRCChecksum(CRC.Parameters.CCITT);
+        prefix.update(checkData, 0, 4);
+        CRCChecksum fork = prefix.copy();
+        assertSame(prefix.getCRC(), fork.getCRC());
+
+        prefix.update(checkData, 4, 5);
+        fork.update(checkData, 4, 3);
+        assertEquals(0x29B1L, prefix.getValue());
+        assertEquals(CRC.calculateCRC(CRC.Parameters.CCITT, checkData, 0, 7), fork.getValue());
+    }
+
+    @Test
+    public void testCheckedInputStream() throws IOException {
+        byte[] data = new byte[10000];
+        new java.util.Random(17).nextBytes(data);
+        CRCChecksum checksum = new CRCChecksum(CRC.Parameters.CRC64ECMA);
+        try (CheckedInputStream in = new CheckedInputStream(new ByteArrayInputStream(data), checksum)) {
+            in.read();
+            in.readAllBytes();
+        }
+        assertEquals(new CRC(CRC.Parameters.CRC64ECMA).calculateCRC(data), checksum.getValue());
+    }
+}
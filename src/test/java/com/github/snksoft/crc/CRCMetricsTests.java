@@ -0,0 +1,116 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class CRCMetricsTests {
+    private static final byte[] checkData = "123456789".getBytes();
+
+    @Test
+    public void testCounters() {
+        List<String> events = new ArrayList<>();
+        CRCMetrics.reset();
+        CRCMetrics.setListener(new CRCMetrics.Listener() {
+            @Override
+            public void processed(CRCMetrics.DataPath path, CRC.Parameters crcParams, long bytes) {
+                events.add(path + ":" + bytes);
+            }
+
+            @Override
+            public void tableBuilt(String kind, int width, long polynomial, boolean reflectIn, long nanos) {
+                events.add(kind + ":" + width);
+            }
+        });
+        try {
+            CRCMetrics.processed(CRCMetrics.DataPath.BITWISE, CRC.Parameters.CRC32, 100, null);
+            CRCMetrics.processed(CRCMetrics.DataPath.BITWISE, CRC.Parameters.CRC32, 20, null);
+            CRCMetrics.processed(CRCMetrics.DataPath.BITWISE, CRC.Parameters.XMODEM, 3, null);
+            CRCMetrics.processed(CRCMetrics.DataPath.TABLE_SUPPLIER, CRC.Parameters.XMODEM, 5, null);
+            CRCMetrics.tableBuilt("slicing-8", 16, 0x1021, false, 1000);
+
+            assertEquals(3, CRCMetrics.getCalls(CRCMetrics.DataPath.BITWISE));
+            assertEquals(123, CRCMetrics.getBytes(CRCMetrics.DataPath.BITWISE));
+            assertEquals(2, CRCMetrics.getCalls(CRCMetrics.DataPath.BITWISE, CRC.Parameters.CRC32));
+            assertEquals(120, CRCMetrics.getBytes(CRCMetrics.DataPath.BITWISE, CRC.Parameters.CRC32));
+            // equal parameters share counters
+            CRC.Parameters xmodem = new CRC.Parameters(CRC.Parameters.XMODEM);
+            assertEquals(5, CRCMetrics.getBytes(CRCMetrics.DataPath.TABLE_SUPPLIER, xmodem));
+            assertEquals(0, CRCMetrics.getCalls(CRCMetrics.DataPath.TABLE, xmodem));
+            assertEquals(1, CRCMetrics.getTablesBuilt());
+            assertEquals(List.of("BITWISE:100", "BITWISE:20", "BITWISE:3", "TABLE_SUPPLIER:5", "slicing-8:16"), events);
+
+            CRCMetrics.reset();
+            assertEquals(0, CRCMetrics.getCalls(CRCMetrics.DataPath.BITWISE));
+            assertEquals(0, CRCMetrics.getBytes(CRCMetrics.DataPath.BITWISE, CRC.Parameters.CRC32));
+            assertEquals(0, CRCMetrics.getTablesBuilt());
+        } finally {
+            CRCMetrics.setListener(null);
+        }
+    }
+
+    /**
+     * Metrics are read once, so this runs only in the JVM forked by the <code>metrics</code> surefire execution,
+     * which sets <code>com.github.snksoft.crc.metrics</code>.
+     */
+    @Test
+    public void testInstrumentedPaths() {
+        assumeTrue(CRCMetrics.isEnabled(), "metrics are not enabled in this JVM");
+        CRCMetrics.reset();
+        CRC crc = new CRC(CRC.Parameters.XMODEM, 8);
+        CRC.calculateCRC(CRC.Parameters.XMODEM, checkData);
+        CRC.calculateCRC(CRC.Parameters.XMODEM, (CRC.ByteSupplier) i -> checkData[i], 0, checkData.length);
+        crc.calculateCRC(checkData);
+        crc.update(crc.init(), (CRC.ByteSupplier) i -> checkData[i], 0, checkData.length);
+        crc.calculateCRCInterleaved(checkData, 0, checkData.length);
+        crc.calculateCRCs(checkData, new int[] {0, 4}, new int[] {4, 5}, new long[2]);
+        new CRC(CRC.Parameters.CRC32).calculateCRC(checkData);
+        new CRC(new CRC.Parameters(17, 0x1685B, 0, true, true, 0)).calculateCRC(checkData);
+
+        for (CRCMetrics.DataPath path : new CRCMetrics.DataPath[] {
+                CRCMetrics.DataPath.BITWISE, CRCMetrics.DataPath.BITWISE_SUPPLIER, CRCMetrics.DataPath.TABLE,
+                CRCMetrics.DataPath.TABLE_SUPPLIER, CRCMetrics.DataPath.INTERLEAVED }) {
+            assertEquals(1, CRCMetrics.getCalls(path, CRC.Parameters.XMODEM), path.toString());
+            assertEquals(checkData.length, CRCMetrics.getBytes(path, CRC.Parameters.XMODEM), path.toString());
+        }
+        assertEquals(1, CRCMetrics.getCalls(CRCMetrics.DataPath.BATCH, CRC.Parameters.XMODEM));
+        assertEquals(checkData.length, CRCMetrics.getBytes(CRCMetrics.DataPath.BATCH, CRC.Parameters.XMODEM));
+        assertEquals(1, CRCMetrics.getCalls(CRCMetrics.DataPath.INTRINSIC, CRC.Parameters.CRC32));
+        assertEquals(2, CRCMetrics.getCalls(CRCMetrics.DataPath.TABLE));
+        assertTrue(CRCMetrics.getTablesBuilt() > 0);
+        CRCMetrics.reset();
+    }
+
+    @Test
+    public void testCalculationEventsSpanCalculation() throws java.io.IOException {
+        assumeTrue(CRCMetrics.isEnabled(), "metrics are not enabled in this JVM");
+        byte[] data = new byte[4 << 20];
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("crc", ".jfr");
+        try (jdk.jfr.Recording recording = new jdk.jfr.Recording()) {
+            recording.enable("com.github.snksoft.crc.Calculation").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            assertNull(CRCMetrics.begin(checkData.length)); // small calls do not touch JFR at all
+            new CRC(CRC.Parameters.CCITT, 1).calculateCRC(data);
+            new CRC(CRC.Parameters.CCITT, 1).calculateCRC(checkData); // below the size threshold
+            recording.stop();
+            recording.dump(file);
+
+            List<jdk.jfr.consumer.RecordedEvent> events = new ArrayList<>();
+            for (jdk.jfr.consumer.RecordedEvent event : jdk.jfr.consumer.RecordingFile.readAllEvents(file)) {
+                if (event.getEventType().getName().equals("com.github.snksoft.crc.Calculation")) {
+                    events.add(event);
+                }
+            }
+            assertEquals(1, events.size(), events.toString());
+            assertEquals(data.length, events.get(0).getLong("bytes"));
+            assertEquals("TABLE", events.get(0).getString("path"));
+            assertTrue(events.get(0).getDuration().toNanos() > 0);
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CRCStreamTests {
+    private static final CRC crc = new CRC(CRC.Parameters.CRC64ECMA);
+
+    private static byte[] randomData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testStreams() throws IOException {
+        byte[] data = randomData(20000);
+        long expected = crc.calculateCRC(data);
+
+        try (CRCInputStream in = new CRCInputStream(new ByteArrayInputStream(data), crc)) {
+            assertEquals(data[0] & 0xFF, in.read());
+            assertEquals(100, in.skip(100));
+            assertEquals(0, in.skip(0));
+            assertEquals(0, in.skip(-5));
+            byte[] buffer = new byte[777];
+            while (in.read(buffer, 0, buffer.length) >= 0) {
+            }
+            assertEquals(-1, in.read());
+            assertFalse(in.markSupported());
+            assertEquals(expected, in.getChecksum().getValue());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CRCOutputStream out = new CRCOutputStream(bytes, crc)) {
+            out.write(data[0]);
+            out.write(data, 1, 5000);
+            out.write(data, 5001, data.length - 5001);
+            assertEquals(expected, out.getChecksum().getValue());
+        }
+        assertArrayEquals(data, bytes.toByteArray());
+    }
+
+    @Test
+    public void testChannels() throws IOException {
+        byte[] data = randomData(30000);
+        long expected = crc.calculateCRC(data);
+        Path file = Files.createTempFile("crc", ".bin");
+        try {
+            // gathering writes to a file channel, mixing heap and direct buffers
+            try (CRCWritableByteChannel out = new CRCWritableByteChannel(FileChannel.open(file, StandardOpenOption.WRITE), crc)) {
+                ByteBuffer direct = ByteBuffer.allocateDirect(10000);
+                direct.put(data, 100, 10000).flip();
+                assertEquals(100, out.write(ByteBuffer.wrap(data, 0, 100)));
+                ByteBuffer[] srcs = { ByteBuffer.allocate(1), direct, ByteBuffer.wrap(data, 10100, data.length - 10100) };
+                srcs[0].flip();
+                long written = 0;
+                while (written < data.length - 100) {
+                    written += out.write(srcs);
+                }
+                assertEquals(expected, out.getChecksum().getValue());
+            }
+            assertArrayEquals(data, Files.readAllBytes(file));
+
+            // scattering reads from a file channel
+            try (CRCReadableByteChannel in = new CRCReadableByteChannel(FileChannel.open(file), crc)) {
+                ByteBuffer[] dsts = { ByteBuffer.allocate(333), ByteBuffer.allocateDirect(4096), ByteBuffer.allocate(1000) };
+                while (in.read(dsts) >= 0) {
+                    for (ByteBuffer dst : dsts) {
+                        dst.clear();
+                    }
+                }
+                assertEquals(expected, in.getChecksum().getValue());
+            }
+
+            // plain channels without scatter/gather support
+            try (CRCReadableByteChannel in = new CRCReadableByteChannel(Channels.newChannel(Files.newInputStream(file)), crc)) {
+                ByteBuffer[] dsts = { ByteBuffer.allocate(512), ByteBuffer.allocateDirect(1024) };
+                while (in.read(dsts) >= 0) {
+                    for (ByteBuffer dst : dsts) {
+                        dst.clear();
+                    }
+                }
+                assertEquals(expected, in.getChecksum().getValue());
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (CRCWritableByteChannel out = new CRCWritableByteChannel(Channels.newChannel(bytes), crc)) {
+                assertEquals(data.length, out.write(new ByteBuffer[] { ByteBuffer.wrap(data, 0, 7), ByteBuffer.wrap(data, 7, data.length - 7) }));
+                assertEquals(expected, out.getChecksum().getValue());
+            }
+            assertArrayEquals(data, bytes.toByteArray());
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CRCStreamsTests {
+    private static final CRC.Parameters[] params = {
+        CRC.Parameters.CRC32,
+        CRC.Parameters.CCITT,
+        CRC.Parameters.CRC64ECMA,
+        new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+        new CRC.Parameters(24, 0x864CFB, 0xB704CE, false, true, 0x0),
+        new CRC.Parameters(12, 0x80F, 0x123, true, false, 0xFFF),
+    };
+
+    @Test
+    public void testCollectorsMatchSequential() {
+        Random random = new Random(31);
+        List<byte[]> chunks = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < 500; i++) {
+            byte[] chunk = new byte[random.nextInt(5) == 0 ? 0 : random.nextInt(2000)];
+            random.nextBytes(chunk);
+            chunks.add(chunk);
+            total += chunk.length;
+        }
+        ByteBuffer all = ByteBuffer.allocate(total);
+        chunks.forEach(all::put);
+        byte[] data = all.array();
+
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            long expected = crc.calculateCRC(data);
+            assertEquals(expected, (long) chunks.stream().collect(CRCStreams.toCRC(crc)), crcParams.toString());
+            assertEquals(expected, (long) chunks.parallelStream().collect(CRCStreams.toCRC(crc)), crcParams.toString());
+
+            // buffers with positions, processed in parallel and left unchanged
+            List<ByteBuffer> buffers = chunks.stream()
+                    .map(chunk -> {
+                        ByteBuffer buffer = ByteBuffer.allocateDirect(chunk.length + 3);
+                        buffer.position(3);
+                        buffer.put(chunk).position(3);
+                        return buffer;
+                    })
+                    .collect(Collectors.toList());
+            assertEquals(expected, (long) buffers.parallelStream().collect(CRCStreams.toCRCOfBuffers(crc)), crcParams.toString());
+            for (ByteBuffer buffer : buffers) {
+                assertEquals(3, buffer.position());
+            }
+
+            assertEquals(crc.calculateCRC(new byte[0]), (long) new ArrayList<byte[]>().parallelStream().collect(CRCStreams.toCRC(crc)));
+        }
+    }
+
+    @Test
+    public void testSegments() {
+        byte[] data = new byte[100_003];
+        new Random(32).nextBytes(data);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        buffer.position(5);
+
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            long expected = crc.calculateCRC(data, 5, data.length - 5);
+            for (int segmentSize : new int[] { 1, 7, 4096, data.length }) {
+                assertEquals(expected, (long) CRCStreams.stream(buffer, segmentSize, true).collect(CRCStreams.toCRCOfBuffers(crc)));
+                assertEquals(expected, (long) CRCStreams.stream(buffer, segmentSize, false).collect(CRCStreams.toCRCOfBuffers(crc)));
+            }
+        }
+        assertEquals(5, buffer.position());
+        assertEquals(data.length, buffer.limit());
+
+        // splits fall on segment boundaries and cover the data exactly once
+        Spliterator<ByteBuffer> right = CRCStreams.segments(buffer, 1000);
+        assertEquals(100, right.estimateSize());
+        Spliterator<ByteBuffer> left = right.trySplit();
+        assertEquals(50, left.estimateSize());
+        assertEquals(50, right.estimateSize());
+        List<ByteBuffer> segments = new ArrayList<>();
+        left.forEachRemaining(segments::add);
+        right.forEachRemaining(segments::add);
+        int pos = 5;
+        for (ByteBuffer segment : segments) {
+            assertEquals(pos, segment.position());
+            pos = segment.limit();
+        }
+        assertEquals(data.length, pos);
+        assertEquals(998, segments.get(99).remaining());
+        assertNull(CRCStreams.segments(ByteBuffer.allocate(10), 10).trySplit());
+
+        assertThrows(IllegalArgumentException.class, () -> CRCStreams.segments(buffer, 0));
+    }
+}
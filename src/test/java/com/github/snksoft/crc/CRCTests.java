@@ -384,4 +384,525 @@ public class CRCTests {
         doTest.apply(CRC.Parameters.CRC64ECMA, 0x31610F76CFB272A5L, "Whenever digital data is stored or interfaced, data corruption might occur. Since the beginning of computer science, people have been thinking of ways to deal with this type of problem. For serial data they came up with the solution to attach a parity bit to each sent byte. This simple detection mechanism works if an odd number of bits in a byte changes, but an even number of false bits in one byte will not be detected by the parity check. To overcome this problem people have searched for mathematical sound mechanisms to detect multiple false bits.");
     }
 
+    @Test
+    public void testSlicingTablesMatchBitwise() {
+        byte[] data = new byte[1000];
+        new java.util.Random(42).nextBytes(data);
+
+        CRC.Parameters[] params = {
+            new CRC.Parameters(3, 0x03, 0x00, false, false, 0x7),
+            new CRC.Parameters(5, 0x15, 0x00, true,  true,  0x0),
+            new CRC.Parameters(8, 0x07, 0, false, false, 0),
+            new CRC.Parameters(12, 0x80f, 0x00, false, true, 0x00),
+            new CRC.Parameters(14, 0x0805, 0x00, true, true, 0x00),
+            CRC.Parameters.CCITT,
+            CRC.Parameters.CRC16,
+            new CRC.Parameters(24, 0x00065b, 0x555555,  true,  true, 0x000000),
+            new CRC.Parameters(31, 0x04c11db7, 0x7fffffff, false, false, 0x7fffffff),
+            CRC.Parameters.CRC32,
+            new CRC.Parameters(32, 0x04C11DB7, 0xFFFFFFFFL, false, false, 0xFFFFFFFFL),
+            new CRC.Parameters(40, 0x0004820009L, 0x00, false, false, 0xffffffffffL),
+            CRC.Parameters.CRC64ECMA,
+            new CRC.Parameters(64, 0x42F0E1EBA9EA3693L, 0x00, false, false, 0x00),
+        };
+
+        for (CRC.Parameters crcParams : params) {
+            CRC[] engines = { new CRC(crcParams, 1), new CRC(crcParams), new CRC(crcParams, 16) };
+            for (int offset = 0; offset < 20; offset += 7) {
+                for (int length = 0; length < data.length - offset; length += 37) {
+                    long expected = bitwise(crcParams, data, offset, length);
+                    for (CRC crc : engines) {
+                        assertEquals(expected, crc.calculateCRC(data, offset, length));
+
+                        // feeding data in uneven chunks must give the same result
+                        long curValue = crc.init();
+                        curValue = crc.update(curValue, data, offset, length / 3);
+                        curValue = crc.update(curValue, data, offset + length / 3, length - length / 3);
+                        assertEquals(expected, crc.finalCRC(curValue));
+                    }
+                }
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new CRC(CRC.Parameters.CRC32, 4));
+    }
+
+    @Test
+    public void testNibbleEngineMatchesBitwise() {
+        byte[] data = new byte[300];
+        new java.util.Random(7).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+
+        java.util.Random random = new java.util.Random(8);
+        for (int width = 1; width <= 64; width++) {
+            long mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+            for (boolean reflectIn : new boolean[] { false, true }) {
+                CRC.Parameters crcParams = new CRC.Parameters(width, random.nextLong() & mask | 1, random.nextLong() & mask,
+                        reflectIn, random.nextBoolean(), random.nextLong() & mask);
+                CRC crc = new CRC(crcParams, 1);
+                NibbleEngine nibble = new NibbleEngine(width, crcParams.getPolynomial(), reflectIn);
+                for (int length : new int[] { 0, 1, 2, 17, data.length }) {
+                    long expected = bitwise(crcParams, data, 0, length);
+                    assertEquals(expected, crc.finalCRC(nibble.update(crc.init(), data, 0, length)), crcParams.toString());
+                    assertEquals(expected, crc.finalCRC(nibble.update(crc.init(), direct, 0, length)), crcParams.toString());
+
+                    // static calculations go through a nibble engine of their own
+                    assertEquals(expected, CRC.calculateCRC(crcParams, data, 0, length), crcParams.toString());
+                    assertEquals(expected, CRC.calculateCRC(crcParams, direct, 0, length), crcParams.toString());
+                    assertEquals(expected, CRC.calculateCRC(crcParams, (CRC.ByteSupplier) i -> data[i], 0, length), crcParams.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSpecializedMatchesBitwise() {
+        byte[] data = new byte[300];
+        new java.util.Random(9).nextBytes(data);
+        java.nio.ByteOrder[] orders = { java.nio.ByteOrder.BIG_ENDIAN, java.nio.ByteOrder.LITTLE_ENDIAN };
+
+        java.util.Random random = new java.util.Random(10);
+        java.util.List<CRC.Parameters> algorithms = new java.util.ArrayList<>();
+        for (int width = 1; width <= 64; width++) {
+            long mask = ((width >= 64) ? 0 : (1L << width)) - 1;
+            for (boolean reflectIn : new boolean[] { false, true }) {
+                CRC.Parameters crcParams = new CRC.Parameters(width, random.nextLong() & mask | 1, random.nextLong() & mask,
+                        reflectIn, random.nextBoolean(), random.nextLong() & mask);
+                CRC crc = CRC.specialized(crcParams);
+                algorithms.add(crcParams);
+                for (int length : new int[] { 0, 1, 15, 16, 17, 100, data.length }) {
+                    long expected = bitwise(crcParams, data, 0, length);
+                    assertEquals(expected, crc.calculateCRC(data, 0, length), crcParams.toString());
+                    for (java.nio.ByteOrder order : orders) {
+                        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+                        direct.put(data).flip();
+                        assertEquals(expected, crc.calculateCRC(direct, 0, length), crcParams.toString());
+                    }
+                }
+            }
+        }
+
+        // algorithms outnumber cache entries, but classes are kept by the specializer and not defined again
+        java.util.Set<Class<?>> classes = new java.util.HashSet<>();
+        for (int round = 0; round < 3; round++) {
+            for (CRC.Parameters crcParams : algorithms) {
+                classes.add(TableCache.get(crcParams).specialized().getClass());
+            }
+        }
+        assertTrue(algorithms.size() > TableCache.MAX_ENTRIES);
+        assertEquals(algorithms.size(), classes.size());
+        for (Class<?> engineClass : classes) {
+            assertTrue(engineClass.getName().startsWith(SpecializedEngine.class.getName() + "_"), engineClass.getName());
+        }
+
+        // one class per algorithm, shared by its processors; the template itself is never initialized
+        Engine engine = TableCache.get(CRC.Parameters.CRC64ECMA).specialized();
+        assertSame(engine, TableCache.get(CRC.Parameters.CRC64ECMA).specialized());
+        assertNotSame(SpecializedEngine.class, engine.getClass());
+        assertNotSame(engine.getClass(), TableCache.get(CRC.Parameters.CCITT).specialized().getClass());
+        assertThrows(IllegalStateException.class, () -> EngineSpecializer.take(SpecializedEngine.class));
+        assertEquals(CRC.calculateCRC(CRC.Parameters.CRC32, data), CRC.specialized(CRC.Parameters.CRC32).calculateCRC(data));
+    }
+
+    @Test
+    public void testSlicingEngineWidths() {
+        assertTrue(TableCache.get(new CRC.Parameters(5, 0x15, 0, true, true, 0)).slicing(8) instanceof ByteSlicingEngine);
+        assertTrue(TableCache.get(CRC.Parameters.CCITT).slicing(8) instanceof ShortSlicingEngine);
+        assertTrue(TableCache.get(CRC.Parameters.CRC32).slicing(16) instanceof IntSlicingEngine);
+        assertTrue(TableCache.get(CRC.Parameters.CRC64ECMA).slicing(1) instanceof LongSlicingEngine);
+
+        // direct buffers of either byte order take the word-at-a-time path of every engine
+        byte[] data = new byte[203];
+        new java.util.Random(3).nextBytes(data);
+        CRC.Parameters[] params = {
+            new CRC.Parameters(5, 0x15, 0x1f, true, true, 0x1f),
+            new CRC.Parameters(8, 0x07, 0, false, false, 0),
+            new CRC.Parameters(10, 0x233, 0, false, false, 0),
+            CRC.Parameters.CRC16,
+            new CRC.Parameters(24, 0x864cfb, 0xb704ce, false, false, 0),
+            CRC.Parameters.CRC32,
+            CRC.Parameters.CRC64ECMA,
+        };
+        for (CRC.Parameters crcParams : params) {
+            long expected = CRC.calculateCRC(crcParams, data);
+            for (int tables : new int[] { 1, 8, 16 }) {
+                CRC crc = new CRC(crcParams, tables);
+                for (java.nio.ByteOrder order : new java.nio.ByteOrder[] { java.nio.ByteOrder.BIG_ENDIAN, java.nio.ByteOrder.LITTLE_ENDIAN }) {
+                    ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+                    direct.put(data).flip();
+                    assertEquals(expected, crc.calculateCRC(direct, 0, data.length));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testByteBufferKinds() {
+        byte[] data = new byte[300];
+        new java.util.Random(7).nextBytes(data);
+
+        CRC.Parameters[] params = { CRC.Parameters.CRC32, CRC.Parameters.CCITT, CRC.Parameters.CRC64ECMA,
+                new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0) };
+        for (CRC.Parameters crcParams : params) {
+            CRC tableDriven = new CRC(crcParams);
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 16);
+            direct.position(16);
+            direct.put(data);
+
+            ByteBuffer[] buffers = {
+                ByteBuffer.wrap(data),
+                ByteBuffer.wrap(data).asReadOnlyBuffer(),
+                direct.duplicate().order(java.nio.ByteOrder.BIG_ENDIAN),
+                direct.duplicate().order(java.nio.ByteOrder.LITTLE_ENDIAN),
+            };
+            for (ByteBuffer buffer : buffers) {
+                int base = buffer.isDirect() ? 16 : 0;
+                int position = buffer.position();
+                for (int offset = 0; offset < 12; offset += 5) {
+                    for (int length = 0; length < data.length - offset; length += 23) {
+                        long expected = CRC.calculateCRC(crcParams, data, offset, length);
+                        assertEquals(expected, CRC.calculateCRC(crcParams, buffer, base + offset, length));
+                        assertEquals(expected, tableDriven.calculateCRC(buffer, base + offset, length));
+                    }
+                }
+                assertEquals(position, buffer.position());
+            }
+
+            // buffer slice with non-zero array offset
+            ByteBuffer slice = ByteBuffer.wrap(data, 3, 200).slice();
+            assertEquals(CRC.calculateCRC(crcParams, data, 3, 200), tableDriven.calculateCRC(slice));
+            assertEquals(CRC.calculateCRC(crcParams, data, 3, 200), CRC.calculateCRC(crcParams, slice));
+
+            // primitive byte supplier
+            long expected = CRC.calculateCRC(crcParams, data);
+            assertEquals(expected, CRC.calculateCRC(crcParams, i -> data[i], 0, data.length));
+            assertEquals(expected, tableDriven.finalCRC(tableDriven.update(tableDriven.init(), i -> data[i], 0, data.length)));
+            java.util.function.IntFunction<Byte> boxed = i -> data[i];
+            assertEquals(expected, CRC.calculateCRC(crcParams, boxed, 0, data.length));
+            assertEquals(expected, tableDriven.finalCRC(tableDriven.update(tableDriven.init(), boxed, 0, data.length)));
+        }
+
+        assertThrows(IndexOutOfBoundsException.class, () -> new CRC(CRC.Parameters.CRC32).calculateCRC(ByteBuffer.wrap(data, 0, 10), 5, 10));
+    }
+
+    @Test
+    public void testUpdateByteBufferArray() {
+        byte[] data = new byte[1000];
+        new java.util.Random(19).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(600);
+        direct.put(data, 300, 600).flip();
+        ByteBuffer[] chunks = { ByteBuffer.wrap(data, 0, 300), direct, ByteBuffer.wrap(data, 900, 100) };
+
+        CRC crc = new CRC(CRC.Parameters.CCITT);
+        assertEquals(crc.calculateCRC(data), crc.finalCRC(crc.update(crc.init(), chunks)));
+        assertEquals(crc.calculateCRC(data, 300, 700), crc.finalCRC(crc.update(crc.init(), chunks, 1, 2)));
+        assertEquals(0, direct.position());
+        assertThrows(IndexOutOfBoundsException.class, () -> crc.update(0, chunks, 2, 2));
+    }
+
+    @Test
+    public void testCombine() {
+        byte[] data = new byte[2000];
+        new java.util.Random(11).nextBytes(data);
+
+        CRC.Parameters[] params = {
+            new CRC.Parameters(1, 0x01, 0x01, false, false, 0x0),
+            new CRC.Parameters(3, 0x03, 0x07, true,  true,  0x0),
+            new CRC.Parameters(6, 0x27, 0x3f, false, false, 0x0),
+            new CRC.Parameters(12, 0x80f, 0x00, false, true, 0x00),
+            CRC.Parameters.CCITT,
+            CRC.Parameters.XMODEM2,
+            new CRC.Parameters(24, 0x864cfb, 0xb704ce, false, false, 0x000000),
+            CRC.Parameters.CRC32,
+            CRC.Parameters.Castagnoli,
+            new CRC.Parameters(31, 0x04c11db7, 0x7fffffff, false, false, 0x7fffffff),
+            CRC.Parameters.CRC64ISO,
+            new CRC.Parameters(64, 0x42F0E1EBA9EA3693L, 0x00, false, true, 0xFFFFFFFFFFFFFFFFL),
+        };
+
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            for (int split : new int[] {0, 1, 7, 100, 1024, 1999, 2000}) {
+                long crcA = crc.calculateCRC(data, 0, split);
+                long crcB = crc.calculateCRC(data, split, data.length - split);
+                assertEquals(crc.calculateCRC(data), crc.combine(crcA, crcB, data.length - split));
+            }
+
+            // many blocks of the same size
+            long combined = crc.calculateCRC(data, 0, 0);
+            for (int offset = 0; offset < data.length; offset += 250) {
+                combined = crc.combine(combined, crc.calculateCRC(data, offset, 250), 250);
+            }
+            assertEquals(crc.calculateCRC(data), combined);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new CRC(CRC.Parameters.CRC32).combine(0, 0, -1));
+    }
+
+    @Test
+    public void testReplaceRange() {
+        byte[] data = new byte[70000];
+        java.util.Random random = new java.util.Random(23);
+        random.nextBytes(data);
+        CRC.Parameters[] params = { CRC.Parameters.CRC32, CRC.Parameters.CCITT, CRC.Parameters.CRC64ECMA,
+                new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0), new CRC.Parameters(7, 0x09, 0x7f, true, false, 0x55) };
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            byte[] modified = data.clone();
+            long value = crc.calculateCRC(modified);
+            for (int[] range : new int[][] { {0, 10}, {12345, 1}, {69990, 10}, {500, 0}, {30000, 4096}, {0, 70000} }) {
+                byte[] oldBytes = java.util.Arrays.copyOfRange(modified, range[0], range[0] + range[1]);
+                byte[] newBytes = new byte[range[1]];
+                random.nextBytes(newBytes);
+                System.arraycopy(newBytes, 0, modified, range[0], range[1]);
+
+                value = crc.replaceRange(value, range[0], oldBytes, newBytes, modified.length);
+                assertEquals(crc.calculateCRC(modified), value);
+            }
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(3);
+            direct.put(modified, 100, 3).flip();
+            modified[101] ^= 0x40;
+            assertEquals(crc.calculateCRC(modified), crc.replaceRange(value, 100, direct, ByteBuffer.wrap(modified, 100, 3), modified.length));
+            assertEquals(0, direct.position());
+        }
+
+        CRC crc = new CRC(CRC.Parameters.CRC32);
+        assertThrows(IllegalArgumentException.class, () -> crc.replaceRange(0, 0, new byte[2], new byte[3], 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> crc.replaceRange(0, 9, new byte[2], new byte[2], 10));
+        assertThrows(IndexOutOfBoundsException.class, () -> crc.replaceRange(0, -1, new byte[2], new byte[2], 10));
+    }
+
+    @Test
+    public void testCalculateCRCParallel() {
+        byte[] data = new byte[100000];
+        new java.util.Random(5).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(4);
+        try {
+            CRC.Parameters[] params = { CRC.Parameters.CRC32, CRC.Parameters.CCITT, CRC.Parameters.CRC64ECMA,
+                    new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0) };
+            for (CRC.Parameters crcParams : params) {
+                CRC crc = new CRC(crcParams);
+                long expected = crc.calculateCRC(data, 3, data.length - 10);
+                for (int threshold : new int[] {1000, 4096, 33333, 1 << 20}) {
+                    assertEquals(expected, crc.calculateCRCParallel(data, 3, data.length - 10, pool, threshold));
+                    assertEquals(expected, crc.calculateCRCParallel(direct, 3, data.length - 10, pool, threshold));
+                }
+                assertEquals(crc.calculateCRC(data), crc.calculateCRCParallel(data));
+                assertEquals(crc.calculateCRC(data), crc.calculateCRCParallel(direct));
+                assertEquals(0, direct.position());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCalculateCRCInterleaved() {
+        byte[] data = new byte[10000];
+        new java.util.Random(11).nextBytes(data);
+        CRC.Parameters[] params = {
+            new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+            new CRC.Parameters(7, 0x09, 0x00, true, true, 0x00),
+            CRC.Parameters.CCITT,
+            CRC.Parameters.CRC16,
+            new CRC.Parameters(31, 0x04c11db7, 0x7fffffff, false, false, 0x7fffffff),
+            CRC.Parameters.CRC32,
+            CRC.Parameters.CRC64ECMA,
+            new CRC.Parameters(64, 0x42F0E1EBA9EA3693L, 0x00, false, false, 0x00),
+        };
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams, 8);
+            for (int length : new int[] {0, 100, 1023, 1024, 1025, 4096, 5000, data.length - 7}) {
+                long expected = CRC.calculateCRC(crcParams, data, 7, length);
+                assertEquals(expected, crc.calculateCRCInterleaved(data, 7, length));
+                for (java.nio.ByteOrder order : new java.nio.ByteOrder[] { java.nio.ByteOrder.BIG_ENDIAN, java.nio.ByteOrder.LITTLE_ENDIAN }) {
+                    ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+                    direct.put(data).flip();
+                    assertEquals(expected, crc.calculateCRCInterleaved(direct, 7, length));
+                }
+
+                // continuing from a non-initial value
+                long curValue = crc.update(crc.init(), data, 7, length / 2);
+                curValue = crc.updateInterleaved(curValue, data, 7 + length / 2, length - length / 2);
+                assertEquals(expected, crc.finalCRC(curValue));
+            }
+        }
+
+        CRC intrinsic = new CRC(CRC.Parameters.CRC32C);
+        assertEquals(intrinsic.calculateCRC(data, 1, 9000), intrinsic.calculateCRCInterleaved(data, 1, 9000));
+        assertThrows(IndexOutOfBoundsException.class, () -> new CRC(CRC.Parameters.CRC32, 8).calculateCRCInterleaved(ByteBuffer.allocateDirect(100), 50, 51));
+    }
+
+    @Test
+    public void testCalculateCRCs() {
+        byte[] data = new byte[5000];
+        java.util.Random random = new java.util.Random(13);
+        random.nextBytes(data);
+        int count = 23;
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        ByteBuffer[] buffers = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = (i % 5 == 0) ? random.nextInt(8) : 16 + random.nextInt(240);
+            offsets[i] = random.nextInt(data.length - lengths[i]);
+            ByteBuffer buffer = (i % 3 == 0) ? ByteBuffer.allocateDirect(lengths[i] + 3) : ByteBuffer.allocate(lengths[i] + 3);
+            buffer.order((i % 2 == 0) ? java.nio.ByteOrder.LITTLE_ENDIAN : java.nio.ByteOrder.BIG_ENDIAN);
+            buffer.position(3);
+            buffer.put(data, offsets[i], lengths[i]);
+            buffer.position(3);
+            buffers[i] = buffer;
+        }
+
+        CRC.Parameters[] params = { CRC.Parameters.CRC32, CRC.Parameters.CCITT, CRC.Parameters.CRC64ECMA,
+                new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0) };
+        for (CRC.Parameters crcParams : params) {
+            for (CRC crc : new CRC[] { new CRC(crcParams), new CRC(crcParams, 8) }) {
+                long[] results = new long[count];
+                int[] intResults = new int[count];
+                long[] bufferResults = new long[count];
+                crc.calculateCRCs(data, offsets, lengths, results);
+                crc.calculateCRCs(data, offsets, lengths, intResults);
+                crc.calculateCRCs(buffers, bufferResults);
+                for (int i = 0; i < count; i++) {
+                    long expected = CRC.calculateCRC(crcParams, data, offsets[i], lengths[i]);
+                    assertEquals(expected, results[i]);
+                    assertEquals((int) expected, intResults[i]);
+                    assertEquals(expected, bufferResults[i]);
+                    assertEquals(3, buffers[i].position());
+                }
+            }
+        }
+
+        CRC crc = new CRC(CRC.Parameters.CRC32);
+        assertThrows(IllegalArgumentException.class, () -> crc.calculateCRCs(data, new int[2], new int[3], new long[3]));
+        assertThrows(IllegalArgumentException.class, () -> crc.calculateCRCs(data, new int[2], new int[2], new long[1]));
+        assertThrows(IndexOutOfBoundsException.class, () -> crc.calculateCRCs(data, new int[] {4990}, new int[] {11}, new long[1]));
+    }
+
+    @Test
+    public void testFileCRC() throws java.io.IOException {
+        byte[] data = new byte[50000];
+        new java.util.Random(3).nextBytes(data);
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("crc", ".bin");
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(3);
+        try {
+            java.nio.file.Files.write(file, data);
+            for (CRC.Parameters crcParams : new CRC.Parameters[] { CRC.Parameters.CRC32, CRC.Parameters.CCITT, CRC.Parameters.CRC64ISO }) {
+                CRC crc = new CRC(crcParams);
+                assertEquals(crc.calculateCRC(data), crc.calculateCRC(file));
+                assertEquals(crc.calculateCRC(data), crc.calculateCRCParallel(file));
+
+                try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file)) {
+                    long expected = crc.calculateCRC(data, 10, 40000);
+                    assertEquals(expected, crc.calculateCRC(channel, 10, 40000));
+                    // small windows exercise the same code path as files larger than 2GB
+                    assertEquals(expected, crc.finalCRC(crc.update(crc.init(), channel, 10, 40000, 4099)));
+                    assertEquals(expected, crc.calculateCRCParallel(channel, 10, 40000, pool, 1000, 4099));
+                    assertEquals(expected, crc.calculateCRCParallel(channel, 10, 40000, pool, 5000, 4099));
+                    assertEquals(crc.calculateCRC(data, 0, 0), crc.calculateCRC(channel, 0, 0));
+                    assertEquals(0, channel.position());
+                }
+            }
+        } finally {
+            pool.shutdown();
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testIntrinsicParameters() {
+        byte[] data = new byte[5000];
+        new java.util.Random(9).nextBytes(data);
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+        direct.put(data).flip();
+
+        CRC.Parameters[] params = {
+            CRC.Parameters.CRC32,
+            CRC.Parameters.CRC32C,
+            new CRC.Parameters(32, 0x04C11DB7, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL),
+            new CRC.Parameters(32, 0x1EDC6F41, 0xFFFFFFFFL, true, true, 0xFFFFFFFFL),
+        };
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            CRC tableOnly = new CRC(crcParams, 8);
+            assertEquals(CRC.calculateCRC(crcParams, data), crc.calculateCRC(data));
+            assertEquals(CRC.calculateCRC(crcParams, data), crc.calculateCRC(direct));
+
+            // intermediate values must be exactly the same as produced by tables, whatever the chunk sizes are
+            long curValue = crc.init();
+            long tableValue = tableOnly.init();
+            int offset = 0;
+            for (int length : new int[] {3, 700, 20, 1024, 1024, 513, 1, 1500}) {
+                curValue = crc.update(curValue, data, offset, length);
+                tableValue = tableOnly.update(tableValue, data, offset, length);
+                assertEquals(tableValue & 0xFFFFFFFFL, curValue & 0xFFFFFFFFL);
+                curValue = crc.update(curValue, direct, offset, 0);
+                offset += length;
+            }
+            curValue = crc.update(curValue, direct, offset, data.length - offset);
+            assertEquals(CRC.calculateCRC(crcParams, data), crc.finalCRC(curValue));
+            assertEquals(0, direct.position());
+
+            // the buffer is read in place, also before its position, and left as it was
+            direct.limit(1000).position(900);
+            assertEquals(crc.calculateCRC(data, 10, 600), crc.calculateCRC(direct, 10, 600));
+            assertEquals(900, direct.position());
+            assertEquals(1000, direct.limit());
+            direct.clear();
+        }
+    }
+
+    @Test
+    public void testParametersEqualityAndSharedTables() {
+        CRC.Parameters crc32 = new CRC.Parameters(32, 0x04C11DB7, 0x00FFFFFFFFL, true, true, 0x00FFFFFFFFL);
+        assertEquals(CRC.Parameters.CRC32, crc32);
+        assertEquals(CRC.Parameters.CRC32.hashCode(), crc32.hashCode());
+        assertEquals(CRC.Parameters.CRC32, new CRC.Parameters(CRC.Parameters.CRC32));
+        assertNotEquals(CRC.Parameters.CRC32, CRC.Parameters.CRC32C);
+        assertNotEquals(CRC.Parameters.XMODEM, CRC.Parameters.CCITT);
+
+        // variants differing only in init, final xor and output reflection share tables
+        CRC.Parameters jamcrc = new CRC.Parameters(32, 0x04C11DB7, 0x00FFFFFFFFL, true, true, 0x0);
+        CRC.Parameters bzip2 = new CRC.Parameters(32, 0x04C11DB7, 0x00FFFFFFFFL, false, false, 0x00FFFFFFFFL);
+        assertSame(TableCache.get(CRC.Parameters.CRC32), TableCache.get(jamcrc));
+        assertSame(TableCache.get(CRC.Parameters.XMODEM), TableCache.get(CRC.Parameters.CCITT));
+        assertNotSame(TableCache.get(CRC.Parameters.CRC32), TableCache.get(bzip2));
+
+        assertEquals(0x340BC6D9L, new CRC(jamcrc).calculateCRC("123456789".getBytes()));
+        assertEquals(0xFC891918L, new CRC(bzip2).calculateCRC("123456789".getBytes()));
+        assertEquals(0xCBF43926L, new CRC(CRC.Parameters.CRC32).calculateCRC("123456789".getBytes()));
+    }
+
+    /** Straightforward bit by bit calculation (section 8 of Ross N. Williams paper), the reference for engines */
+    private static long bitwise(CRC.Parameters crcParams, byte[] data, int offset, int length) {
+        int width = crcParams.getWidth();
+        long topBit = 1L << (width - 1);
+        long mask = (topBit << 1) - 1;
+        long curValue = crcParams.getInit();
+        for (int i = offset; i < offset + length; i++) {
+            int curByte = data[i] & 0xFF;
+            if (crcParams.isReflectIn()) {
+                curByte = Integer.reverse(curByte) >>> 24;
+            }
+            for (int j = 0x80; j != 0; j >>= 1) {
+                long bit = curValue & topBit;
+                curValue <<= 1;
+                if ((curByte & j) != 0) {
+                    bit ^= topBit;
+                }
+                if (bit != 0) {
+                    curValue ^= crcParams.getPolynomial();
+                }
+            }
+        }
+        curValue &= mask;
+        if (crcParams.isReflectOut()) {
+            curValue = Long.reverse(curValue) >>> (64 - width);
+        }
+        return (curValue ^ crcParams.getFinalXor()) & mask;
+    }
 }
@@ -0,0 +1,78 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileChecksumServiceTests {
+    private static final CRC crc32 = new CRC(CRC.Parameters.CRC32);
+    private static final CRC crc64 = new CRC(CRC.Parameters.CRC64ECMA);
+
+    private static class Collector implements FileChecksumService.Listener {
+        final Map<Path, long[]> results = new ConcurrentHashMap<>();
+        final Map<Path, IOException> failures = new ConcurrentHashMap<>();
+
+        @Override
+        public void completed(Path file, long size, long[] crcs) {
+            results.put(file, crcs);
+        }
+
+        @Override
+        public void failed(Path file, IOException exception) {
+            failures.put(file, exception);
+        }
+    }
+
+    @Test
+    public void testChecksumTree() throws IOException, InterruptedException {
+        Path root = Files.createTempDirectory("crc");
+        try {
+            Random random = new Random(29);
+            Files.createDirectories(root.resolve("a/b"));
+            Map<Path, byte[]> contents = new ConcurrentHashMap<>();
+            for (int i = 0; i < 40; i++) {
+                byte[] data = new byte[random.nextInt(30000)];
+                random.nextBytes(data);
+                Path file = root.resolve((i % 3 == 0) ? "a/b" : (i % 3 == 1) ? "a" : ".").resolve("file" + i);
+                Files.write(file, data);
+                contents.put(file.normalize(), data);
+            }
+
+            for (FileChecksumService service : new FileChecksumService[] {
+                    new FileChecksumService(4, 4096, crc32, crc64),
+                    new FileChecksumService(java.util.concurrent.ForkJoinPool.commonPool(), 2, 1000, crc32, crc64) }) {
+                try (service) {
+                    Collector collector = new Collector();
+                    service.checksumTree(root, collector);
+                    assertTrue(collector.failures.isEmpty());
+                    assertEquals(contents.size(), collector.results.size());
+                    for (Map.Entry<Path, long[]> result : collector.results.entrySet()) {
+                        byte[] data = contents.get(result.getKey().normalize());
+                        assertArrayEquals(new long[] { crc32.calculateCRC(data), crc64.calculateCRC(data) }, result.getValue());
+                    }
+
+                    Collector listed = new Collector();
+                    Path missing = root.resolve("missing");
+                    service.checksum(Arrays.asList(missing, root.resolve("a/file1")), listed);
+                    assertTrue(listed.failures.get(missing) instanceof NoSuchFileException);
+                    assertEquals(crc64.calculateCRC(contents.get(root.resolve("a/file1").normalize())), listed.results.get(root.resolve("a/file1"))[1]);
+                }
+            }
+        } finally {
+            try (Stream<Path> paths = Files.walk(root)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MultiCRCTests {
+    private static final CRC.Parameters[][] sets = {
+        { CRC.Parameters.CRC32C, CRC.Parameters.CRC64ECMA },
+        { CRC.Parameters.CRC16, CRC.Parameters.CRC32, CRC.Parameters.CCITT },
+        { new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0) },
+        { new CRC.Parameters(24, 0x864CFB, 0xB704CE, false, true, 0x0), new CRC.Parameters(7, 0x09, 0x0, true, true, 0x0),
+          CRC.Parameters.XMODEM, CRC.Parameters.CRC64ISO },
+    };
+
+    @Test
+    public void testMatchesSeparateCalculations() {
+        byte[] data = new byte[1000];
+        new Random(11).nextBytes(data);
+        for (CRC.Parameters[] set : sets) {
+            MultiCRC multi = new MultiCRC(set);
+            assertEquals(set.length, multi.size());
+            CRC[] crcs = new CRC[set.length];
+            for (int k = 0; k < set.length; k++) {
+                crcs[k] = new CRC(set[k]);
+                assertEquals(set[k], multi.getParameters(k));
+            }
+
+            long[] results = new long[set.length];
+            for (int offset = 0; offset < 10; offset += 3) {
+                for (int length = 0; length < data.length - offset; length += 61) {
+                    multi.calculateCRCs(data, offset, length, results);
+                    for (int k = 0; k < set.length; k++) {
+                        assertEquals(crcs[k].calculateCRC(data, offset, length), results[k], set[k].toString());
+                    }
+
+                    for (ByteOrder order : new ByteOrder[] { ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN }) {
+                        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).order(order);
+                        direct.put(data).flip();
+                        multi.calculateCRCs(direct, offset, length, results);
+                        for (int k = 0; k < set.length; k++) {
+                            assertEquals(crcs[k].calculateCRC(data, offset, length), results[k], set[k].toString());
+                        }
+                    }
+
+                    // uneven chunks of different kinds
+                    long[] values = multi.init();
+                    multi.update(values, data, offset, length / 3);
+                    multi.update(values, ByteBuffer.wrap(data), offset + length / 3, length - length / 3);
+                    for (int k = 0; k < set.length; k++) {
+                        assertEquals(crcs[k].calculateCRC(data, offset, length), multi.finalCRC(values, k));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, MultiCRC::new);
+        MultiCRC multi = new MultiCRC(CRC.Parameters.CRC32, CRC.Parameters.CCITT);
+        assertThrows(IllegalArgumentException.class, () -> multi.calculateCRCs(new byte[10], 0, 10, new long[1]));
+        assertThrows(IndexOutOfBoundsException.class, () -> multi.calculateCRCs(new byte[10], 5, 10, new long[2]));
+    }
+}
@@ -0,0 +1,123 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordVerifierTests {
+    private static final CRC.Parameters[] params = {
+        CRC.Parameters.CRC32,
+        CRC.Parameters.CRC32C,
+        CRC.Parameters.CCITT,
+        CRC.Parameters.CRC16,
+        CRC.Parameters.CRC64ECMA,
+        new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+        new CRC.Parameters(8, 0x07, 0x0, false, false, 0x55),
+        new CRC.Parameters(24, 0x864CFB, 0xB704CE, false, true, 0x0),
+        new CRC.Parameters(12, 0x80F, 0x0, true, true, 0xFFF),
+    };
+
+    private static final RecordVerifier.Layout[] layouts = {
+        new RecordVerifier.Layout(4, ByteOrder.BIG_ENDIAN, 4, ByteOrder.LITTLE_ENDIAN, false),
+        new RecordVerifier.Layout(4, ByteOrder.BIG_ENDIAN, 4, ByteOrder.BIG_ENDIAN, true),
+        new RecordVerifier.Layout(2, ByteOrder.LITTLE_ENDIAN, 7, ByteOrder.LITTLE_ENDIAN, true),
+        new RecordVerifier.Layout(1, ByteOrder.LITTLE_ENDIAN, 3, ByteOrder.BIG_ENDIAN, false),
+    };
+
+    /** Writes records of random payloads and returns their offsets, the last one being the end */
+    private static int[] writeRecords(ByteBuffer segment, CRC crc, RecordVerifier.Layout layout, int count, Random random) {
+        int width = crc.getParameters().getWidth();
+        int crcSize = (width + 7) / 8;
+        int maxPayload = (layout.getLengthSize() == 1) ? 255 : 300;
+        int[] offsets = new int[count + 1];
+        int pos = 0;
+        for (int r = 0; r < count; r++) {
+            offsets[r] = pos;
+            int payload = random.nextInt(maxPayload + 1);
+            byte[] header = new byte[layout.getHeaderSize()];
+            random.nextBytes(header);
+            for (int i = 0; i < layout.getLengthSize(); i++) {
+                int shift = 8 * ((layout.getLengthOrder() == ByteOrder.BIG_ENDIAN) ? layout.getLengthSize() - 1 - i : i);
+                header[i] = (byte) (payload >>> shift);
+            }
+            byte[] data = new byte[payload];
+            random.nextBytes(data);
+            segment.duplicate().position(pos).put(header).put(data);
+
+            int covered = layout.isHeaderCovered() ? pos : pos + header.length;
+            long value = crc.calculateCRC(segment, covered, pos + header.length + payload - covered);
+            int crcPos = pos + header.length + payload;
+            for (int i = 0; i < crcSize; i++) {
+                int shift = 8 * ((layout.getCrcOrder() == ByteOrder.BIG_ENDIAN) ? crcSize - 1 - i : i);
+                segment.put(crcPos + i, (byte) (value >>> shift));
+            }
+            pos = crcPos + crcSize;
+        }
+        offsets[count] = pos;
+        return offsets;
+    }
+
+    @Test
+    public void testVerifySegments() {
+        Random random = new Random(21);
+        for (CRC.Parameters crcParams : params) {
+            CRC crc = new CRC(crcParams);
+            for (RecordVerifier.Layout layout : layouts) {
+                RecordVerifier verifier = new RecordVerifier(crc, layout);
+                String message = crcParams + " " + layout;
+                for (boolean direct : new boolean[] { false, true }) {
+                    ByteBuffer segment = direct ? ByteBuffer.allocateDirect(1 << 16) : ByteBuffer.allocate(1 << 16);
+                    int[] offsets = writeRecords(segment, crc, layout, 100, random);
+                    int end = offsets[100];
+                    long[] failures = new long[(end / verifier.minRecordSize() + 63) / 64];
+
+                    assertEquals(-1, verifier.firstBadRecord(segment, 0, end), message);
+                    assertEquals(100, verifier.verify(segment, 0, end, failures), message);
+                    for (long bits : failures) {
+                        assertEquals(0, bits, message);
+                    }
+                    assertEquals(-1, verifier.firstBadRecord(segment, offsets[40], end - offsets[40]), message);
+
+                    // corrupted payloads and CRCs are found without losing track of records after them
+                    int[] corrupted = { 3, 17, 64, 99 };
+                    for (int r : corrupted) {
+                        int at = offsets[r + 1] - 1 - random.nextInt(Math.min(offsets[r + 1] - offsets[r] - layout.getHeaderSize(), 4));
+                        segment.put(at, (byte) (segment.get(at) ^ (1 << random.nextInt(8))));
+                    }
+                    assertEquals(offsets[3], verifier.firstBadRecord(segment, 0, end), message);
+                    assertEquals(100, verifier.verify(segment, 0, end, failures), message);
+                    for (int r = 0; r < 100; r++) {
+                        boolean failed = (failures[r >>> 6] & (1L << r)) != 0;
+                        assertEquals(java.util.Arrays.binarySearch(corrupted, r) >= 0, failed, message + " record " + r);
+                    }
+
+                    // a torn record at the end stops the walk
+                    assertEquals(offsets[99], verifier.firstBadRecord(segment, offsets[99], end - offsets[99] - 1), message);
+                    assertEquals(1, verifier.verify(segment, offsets[99], end - offsets[99] - 1, failures), message);
+                    assertEquals(1L, failures[0], message);
+                    assertEquals(-1, verifier.firstBadRecord(segment, 0, 0), message);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBitmapCapacityAndArguments() {
+        CRC crc = new CRC(CRC.Parameters.CRC32C);
+        RecordVerifier.Layout layout = layouts[0];
+        RecordVerifier verifier = new RecordVerifier(crc, layout);
+        ByteBuffer segment = ByteBuffer.allocate(1 << 16);
+        int[] offsets = writeRecords(segment, crc, layout, 100, new Random(22));
+        assertEquals(64, verifier.verify(segment, 0, offsets[100], new long[1]));
+        assertEquals(0, verifier.verify(segment, 0, offsets[100], new long[0]));
+        assertEquals(8, verifier.minRecordSize());
+
+        assertThrows(IndexOutOfBoundsException.class, () -> verifier.firstBadRecord(segment, 10, segment.limit()));
+        assertThrows(IllegalArgumentException.class, () -> new RecordVerifier.Layout(5, ByteOrder.BIG_ENDIAN, 8, ByteOrder.BIG_ENDIAN, false));
+        assertThrows(IllegalArgumentException.class, () -> new RecordVerifier.Layout(4, ByteOrder.BIG_ENDIAN, 2, ByteOrder.BIG_ENDIAN, false));
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RollingCRCTests {
+    private static final CRC.Parameters[] params = {
+        CRC.Parameters.CRC32,
+        CRC.Parameters.XMODEM,
+        CRC.Parameters.CRC64ECMA,
+        new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+        new CRC.Parameters(16, 0x8005, 0xFFFF, true, false, 0x1234),
+        new CRC.Parameters(32, 0x04C11DB7, 0xFFFFFFFFL, false, true, 0xFFFFFFFFL),
+    };
+
+    private static byte[] randomData(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testWindowValue() {
+        byte[] data = randomData(500);
+        for (CRC.Parameters crcParams : params) {
+            for (int window : new int[] {1, 7, 48, 64}) {
+                RollingCRC rolling = new RollingCRC(crcParams, window);
+                byte[] padded = new byte[window + data.length];
+                System.arraycopy(data, 0, padded, window, data.length);
+                assertEquals(CRC.calculateCRC(crcParams, padded, 0, window), rolling.getValue());
+                for (int i = 0; i < data.length; i++) {
+                    rolling.update(data[i]);
+                    assertEquals(CRC.calculateCRC(crcParams, padded, i + 1, window), rolling.getValue());
+                }
+
+                rolling.reset();
+                rolling.update(ByteBuffer.wrap(data), 0, 100);
+                rolling.update(data, 100, 50);
+                assertEquals(CRC.calculateCRC(crcParams, data, 150 - window, window), rolling.getValue());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> new RollingCRC(CRC.Parameters.CRC32, 0));
+    }
+
+    @Test
+    public void testChunkBoundaries() {
+        byte[] data = randomData(200000);
+        for (CRC.Parameters crcParams : params) {
+            long mask = (crcParams.getWidth() < 8) ? 0x07 : 0x1FF;
+            long target = 0x05;
+            int min = 100;
+            int max = 2000;
+
+            // boundaries found by brute force
+            List<Integer> expected = new ArrayList<>();
+            RollingCRC reference = new RollingCRC(crcParams, 32);
+            int start = 0;
+            for (int i = 0; i < data.length; i++) {
+                reference.update(data[i]);
+                int chunk = i + 1 - start;
+                if (chunk >= min && ((reference.getValue() & mask) == target || chunk >= max)) {
+                    expected.add(i + 1);
+                    start = i + 1;
+                }
+            }
+            assertTrue(expected.size() > data.length / max);
+
+            ChunkScanner scanner = new ChunkScanner(new RollingCRC(crcParams, 32), mask, target, min, max);
+            List<Integer> found = new ArrayList<>();
+            scanner.scan(data, 0, 12345, found::add);
+            scanner.scan(data, 12345, data.length - 12345, found::add);
+            assertEquals(expected, found);
+            assertEquals(data.length - expected.get(expected.size() - 1), scanner.getPendingLength());
+
+            scanner.reset();
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+            direct.put(data).flip();
+            List<Integer> foundInBuffer = new ArrayList<>();
+            scanner.scan(direct, 0, data.length, foundInBuffer::add);
+            assertEquals(expected, foundInBuffer);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new ChunkScanner(new RollingCRC(CRC.Parameters.CRC32, 8), 0xFF, 0, 10, 5));
+    }
+}
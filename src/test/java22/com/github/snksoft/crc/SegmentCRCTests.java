@@ -0,0 +1,66 @@
+package com.github.snksoft.crc;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SegmentCRCTests {
+    private static final CRC.Parameters[] params = {
+        CRC.Parameters.CRC32,
+        CRC.Parameters.CRC32C,
+        CRC.Parameters.CCITT,
+        CRC.Parameters.CRC64ECMA,
+        new CRC.Parameters(5, 0x09, 0x09, false, false, 0x0),
+        new CRC.Parameters(24, 0x864CFB, 0xB704CE, false, true, 0x0),
+    };
+
+    @Test
+    public void testMatchesByteArray() {
+        byte[] data = new byte[3000];
+        new Random(5).nextBytes(data);
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment nativeSegment = arena.allocate(data.length);
+            MemorySegment.copy(data, 0, nativeSegment, ValueLayout.JAVA_BYTE, 0, data.length);
+            MemorySegment heapSegment = MemorySegment.ofArray(data);
+
+            for (CRC.Parameters crcParams : params) {
+                for (CRC crc : new CRC[] { new CRC(crcParams), new CRC(crcParams, 1) }) {
+                    for (int offset = 0; offset < 20; offset += 3) {
+                        for (int length = 0; length < data.length - offset; length += 97) {
+                            long expected = crc.calculateCRC(data, offset, length);
+                            assertEquals(expected, SegmentCRC.calculateCRC(crc, nativeSegment, offset, length));
+                            assertEquals(expected, SegmentCRC.calculateCRC(crc, heapSegment, offset, length));
+
+                            // segments mix with other kinds of data
+                            long curValue = crc.update(crc.init(), data, offset, length / 2);
+                            curValue = SegmentCRC.update(crc, curValue, nativeSegment, offset + length / 2, length - length / 2);
+                            assertEquals(expected, crc.finalCRC(curValue));
+                        }
+                    }
+                    assertEquals(crc.calculateCRC(data), SegmentCRC.calculateCRC(crc, nativeSegment));
+                }
+            }
+
+            // segments of other arrays can not be viewed as ByteBuffers, even for processors delegating to the JDK
+            long[] longs = new long[data.length / 8];
+            MemorySegment longSegment = MemorySegment.ofArray(longs);
+            MemorySegment.copy(data, 0, longSegment, ValueLayout.JAVA_BYTE, 0, longs.length * 8);
+            for (CRC.Parameters crcParams : params) {
+                for (CRC crc : new CRC[] { new CRC(crcParams), new CRC(crcParams, 1) }) {
+                    for (int length = 0; length <= longs.length * 8 - 3; length += 101) {
+                        assertEquals(crc.calculateCRC(data, 3, length), SegmentCRC.calculateCRC(crc, longSegment, 3, length));
+                    }
+                    assertEquals(crc.calculateCRC(data, 0, longs.length * 8), SegmentCRC.calculateCRC(crc, longSegment));
+                }
+            }
+
+            CRC crc = new CRC(CRC.Parameters.CRC32);
+            assertThrows(IndexOutOfBoundsException.class, () -> SegmentCRC.update(crc, crc.init(), nativeSegment, 10, data.length));
+        }
+    }
+}